@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk loading of the branch R-tree, and window queries of tile size at several zoom levels.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BranchGraphicIndexBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class WindowState {
+
+        @Param({"6", "9", "12"})
+        public int zoom;
+
+        Rectangle[] windows;
+
+        int next = 0;
+
+        @Setup
+        public void createWindows() {
+            int[][] tiles = SyntheticBranchesState.createTiles(zoom, SyntheticGridState.SEED);
+            windows = new Rectangle[tiles.length];
+            for (int i = 0; i < tiles.length; i++) {
+                windows[i] = SyntheticBranchesState.getBounds(zoom, tiles[i][0], tiles[i][1]);
+            }
+        }
+
+        Rectangle nextWindow() {
+            Rectangle window = windows[next];
+            next = (next + 1) % windows.length;
+            return window;
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BranchGraphicIndex build(SyntheticBranchesState state) {
+        return BranchGraphicIndex.build(state.branches);
+    }
+
+    @Benchmark
+    public int windowQuery(SyntheticBranchesState state, WindowState windowState) {
+        int count = 0;
+        for (Entry<BranchGraphic, Geometry> e : state.index.getTree().search(windowState.nextWindow()).toBlocking().toIterable()) {
+            count += e.value().getPylonCount();
+        }
+        return count;
+    }
+}
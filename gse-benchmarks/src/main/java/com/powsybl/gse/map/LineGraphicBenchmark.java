@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilding of line branches from unordered segments, one line after the other and like the map does, in parallel.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LineGraphicBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LinesState {
+
+        Map<String, LineGraphic> lines;
+
+        @Setup
+        public void createLines(SyntheticGridState gridState) {
+            lines = gridState.grid.createLines();
+        }
+    }
+
+    private static int getBranchCount(Map<String, LineGraphic> lines) {
+        return lines.values().stream().mapToInt(line -> line.getBranches().size()).sum();
+    }
+
+    @Benchmark
+    public int updateBranches(LinesState state) {
+        // branches are cleared first, so updating again gives the same result
+        state.lines.values().forEach(LineGraphic::updateBranches);
+        return getBranchCount(state.lines);
+    }
+
+    @Benchmark
+    public int updateBranchesParallel(LinesState state) {
+        state.lines.values().parallelStream().forEach(LineGraphic::updateBranches);
+        return getBranchCount(state.lines);
+    }
+}
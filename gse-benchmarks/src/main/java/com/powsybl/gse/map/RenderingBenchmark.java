@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Headless Web Mercator projection of all pylons, and rendering of line tiles with the drawing loops of
+ * {@link LineLayer}, without JavaFX image conversion.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RenderingBenchmark {
+
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+    private static final int TILE_COUNT = 16;
+
+    private static final int PYLON_ZOOM_THRESHOLD = 10;
+
+    @State(Scope.Benchmark)
+    public static class TileState {
+
+        @Param({"6", "9", "12"})
+        public int zoom;
+
+        int[][] tiles;
+
+        Map<BranchGraphic, SimplificationPyramid> pyramids;
+
+        @Setup
+        public void createTiles(SyntheticBranchesState state) {
+            tiles = SyntheticBranchesState.createTiles(zoom, SyntheticGridState.SEED);
+            pyramids = null;
+            if (zoom <= PYLON_ZOOM_THRESHOLD) {
+                // wait for background pyramid building
+                while (pyramids == null) {
+                    pyramids = state.index.getSimplificationPyramids(PYLON_ZOOM_THRESHOLD);
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PylonState {
+
+        double[] lons;
+
+        double[] lats;
+
+        @Setup
+        public void createPylons(SyntheticBranchesState state) {
+            // branches only store projected pylons, geographic ones are computed back out of the measured code
+            int pylonCount = state.branches.stream().mapToInt(BranchGraphic::getPylonCount).sum();
+            lons = new double[pylonCount];
+            lats = new double[pylonCount];
+            int pylon = 0;
+            for (BranchGraphic branch : state.branches) {
+                for (int i = 0; i < branch.getPylonCount(); i++) {
+                    lons[pylon] = branch.getLon(i);
+                    lats[pylon] = branch.getLat(i);
+                    pylon++;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public double project(PylonState state) {
+        double sum = 0;
+        for (int i = 0; i < state.lons.length; i++) {
+            sum += WebMercator.projectLon(state.lons[i]) + WebMercator.projectLat(state.lats[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE_COUNT)
+    public int drawTiles(SyntheticBranchesState state, TileState tileState) {
+        int zoom = tileState.zoom;
+        double scale = WebMercator.getScale(zoom);
+        double lineWidth = zoom >= 9 ? 2 : 1;
+        int culledSegmentCount = 0;
+        for (int t = 0; t < TILE_COUNT; t++) {
+            int x = tileState.tiles[t][0];
+            int y = tileState.tiles[t][1];
+            PixelBuffer buffer = new PixelBuffer(TiledLayer.TILE_SIZE, TiledLayer.TILE_SIZE);
+            double translateX = -x * (double) TiledLayer.TILE_SIZE;
+            double translateY = -y * (double) TiledLayer.TILE_SIZE;
+            for (Entry<BranchGraphic, Geometry> e : state.index.getTree().search(SyntheticBranchesState.getBounds(zoom, x, y)).toBlocking().toIterable()) {
+                BranchGraphic branch = e.value();
+                buffer.setColor(branch.getLine().getColor());
+                if (zoom > PYLON_ZOOM_THRESHOLD) {
+                    culledSegmentCount += LineLayer.drawBranch(buffer, branch, scale, translateX, translateY, lineWidth,
+                                                               false, NOT_CANCELLED);
+                } else {
+                    culledSegmentCount += LineLayer.drawSimplifiedBranch(buffer, branch, tileState.pyramids.get(branch).getPylons(zoom),
+                                                                         scale, translateX, translateY, lineWidth, NOT_CANCELLED);
+                }
+            }
+        }
+        return culledSegmentCount;
+    }
+}
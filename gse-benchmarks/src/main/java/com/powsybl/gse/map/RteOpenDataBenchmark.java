@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of RTE open data CSV files, without writing the binary cache, and reading of the binary cache written after
+ * a first parsing.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RteOpenDataBenchmark {
+
+    private static void delete(Path dir, String glob) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CsvState {
+
+        Path dir;
+
+        List<Path> substationSources;
+
+        List<Path> lineSources;
+
+        @Setup
+        public void writeCsv(SyntheticGridState gridState) throws IOException {
+            dir = Files.createTempDirectory("gse-benchmarks");
+            gridState.grid.writeCsv(dir);
+            substationSources = RteOpenData.getSubstationSources(dir);
+            lineSources = RteOpenData.getLineSources(dir);
+        }
+
+        @TearDown
+        public void deleteDir() throws IOException {
+            delete(dir, "*");
+            Files.delete(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CachedState {
+
+        Path dir;
+
+        @Setup
+        public void writeCache(SyntheticGridState gridState) throws IOException {
+            dir = Files.createTempDirectory("gse-benchmarks");
+            gridState.grid.writeCsv(dir);
+            RteOpenData.parseSubstations(dir);
+            RteOpenData.parseLines(dir);
+        }
+
+        @TearDown
+        public void deleteDir() throws IOException {
+            delete(dir, "*");
+            Files.delete(dir);
+        }
+    }
+
+    // tables are parsed without the cache, which would otherwise be written by each invocation
+
+    @Benchmark
+    public Map<String, LineGraphic> parseLines(CsvState state) {
+        return RteOpenData.parseLineTable(state.lineSources).toGraphics();
+    }
+
+    @Benchmark
+    public Map<String, SubstationGraphic> parseSubstations(CsvState state) {
+        return RteOpenData.parseSubstationTable(state.substationSources.get(0)).toGraphics();
+    }
+
+    @Benchmark
+    public Map<String, LineGraphic> readCachedLines(CachedState state) {
+        return RteOpenData.parseLines(state.dir);
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Douglas-Peucker simplification of all branches, either for one zoom level or as a pyramid of all levels.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SimplificationPyramidBenchmark {
+
+    private static final int MAX_LEVEL = 10;
+
+    @Param({"6", "8", "10"})
+    public int level;
+
+    @Benchmark
+    public int simplify(SyntheticBranchesState state) {
+        int pylonCount = 0;
+        for (BranchGraphic branch : state.branches) {
+            pylonCount += SimplificationPyramid.simplify(branch, level).length;
+        }
+        return pylonCount;
+    }
+
+    @Benchmark
+    public int buildPyramids(SyntheticBranchesState state) {
+        int pylonCount = 0;
+        for (BranchGraphic branch : state.branches) {
+            pylonCount += SimplificationPyramid.build(branch, MAX_LEVEL).getPylons(level).length;
+        }
+        return pylonCount;
+    }
+}
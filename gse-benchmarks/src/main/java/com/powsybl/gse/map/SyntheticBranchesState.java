@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Branches of the synthetic grid, with random tile windows over the grid extent to query them.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+@State(Scope.Benchmark)
+public class SyntheticBranchesState {
+
+    static final int WINDOW_COUNT = 1024;
+
+    List<BranchGraphic> branches;
+
+    BranchGraphicIndex index;
+
+    @Setup
+    public void createBranches(SyntheticGridState gridState) {
+        branches = new ArrayList<>();
+        for (LineGraphic line : gridState.grid.createLines().values()) {
+            line.updateBranches();
+            line.releaseSegments();
+            branches.addAll(line.getBranches());
+        }
+        index = BranchGraphicIndex.build(branches);
+    }
+
+    /**
+     * Tiles at a given zoom level, randomly picked over the grid extent.
+     *
+     * @return for each tile, tile coordinates x and y
+     */
+    static int[][] createTiles(int zoom, long seed) {
+        Random random = new Random(seed);
+        int tileCount = 1 << zoom;
+        int minX = (int) (WebMercator.projectLon(SyntheticGrid.MIN_LON) * tileCount);
+        int maxX = (int) (WebMercator.projectLon(SyntheticGrid.MAX_LON) * tileCount);
+        int minY = (int) (WebMercator.projectLat(SyntheticGrid.MAX_LAT) * tileCount);
+        int maxY = (int) (WebMercator.projectLat(SyntheticGrid.MIN_LAT) * tileCount);
+        int[][] tiles = new int[WINDOW_COUNT][];
+        for (int i = 0; i < WINDOW_COUNT; i++) {
+            tiles[i] = new int[] {minX + random.nextInt(maxX - minX + 1), minY + random.nextInt(maxY - minY + 1)};
+        }
+        return tiles;
+    }
+
+    /**
+     * Geographic bounds of a tile.
+     */
+    static Rectangle getBounds(int zoom, int x, int y) {
+        int tileCount = 1 << zoom;
+        return Geometries.rectangleGeographic(WebMercator.unprojectX((double) x / tileCount),
+                                              WebMercator.unprojectY((double) (y + 1) / tileCount),
+                                              WebMercator.unprojectX((double) (x + 1) / tileCount),
+                                              WebMercator.unprojectY((double) y / tileCount));
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded generator of a grid looking like the RTE open data one, so that benchmarks are reproducible offline and
+ * comparable between commits. Lines are random walks of 10 to 200 segments spread over France, with a few spurs, and
+ * a substation at the start of each line.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class SyntheticGrid {
+
+    static final double MIN_LON = -4.5;
+    static final double MAX_LON = 8;
+    static final double MIN_LAT = 42.5;
+    static final double MAX_LAT = 51;
+
+    private static final String HEADER = "header";
+
+    private static final char SEPARATOR = ';';
+
+    // same labels as in RTE open data, from the most to the least frequent
+    private static final String[] BASE_VOLTAGE_LABELS = {"63 kV", "90 kV", "225 kV", "400 kV", "150 kV", "45 kV"};
+    private static final RteOpenData.BaseVoltage[] BASE_VOLTAGES = {
+        RteOpenData.BaseVoltage.VL_63_KV,
+        RteOpenData.BaseVoltage.VL_90_KV,
+        RteOpenData.BaseVoltage.VL_225_KV,
+        RteOpenData.BaseVoltage.VL_400_KV,
+        RteOpenData.BaseVoltage.VL_150_KV,
+        RteOpenData.BaseVoltage.VL_45_KV
+    };
+
+    // mean distance between 2 pylons, in degrees
+    private static final double SPAN = 0.004;
+
+    private final LineTable lineTable;
+
+    private final boolean[] undergroundLines;
+
+    private final SubstationTable substationTable;
+
+    private SyntheticGrid(LineTable lineTable, boolean[] undergroundLines, SubstationTable substationTable) {
+        this.lineTable = lineTable;
+        this.undergroundLines = undergroundLines;
+        this.substationTable = substationTable;
+    }
+
+    /**
+     * Coordinates are rounded to 6 decimals like in RTE open data, so parsed values are exactly the generated ones.
+     */
+    private static double round(double value) {
+        return Math.round(value * 1e6) / 1e6;
+    }
+
+    private static int pickBaseVoltage(Random random) {
+        // geometric distribution, low voltages are the most frequent
+        int i = 0;
+        while (i < BASE_VOLTAGES.length - 1 && random.nextBoolean()) {
+            i++;
+        }
+        return i;
+    }
+
+    static SyntheticGrid generate(int segmentCount, long seed) {
+        if (segmentCount <= 0) {
+            throw new IllegalArgumentException("Invalid segment count " + segmentCount);
+        }
+        Random random = new Random(seed);
+        LineTable.Builder lineBuilder = new LineTable.Builder();
+        SubstationTable.Builder substationBuilder = new SubstationTable.Builder();
+        boolean[] underground = new boolean[segmentCount / 10 + 1];
+        int lineCount = 0;
+        int generated = 0;
+        while (generated < segmentCount) {
+            String lineId = String.format("LINE%07d", lineCount);
+            int baseVoltage = pickBaseVoltage(random);
+            if (lineCount == underground.length) {
+                boolean[] newUnderground = new boolean[lineCount * 2];
+                System.arraycopy(underground, 0, newUnderground, 0, lineCount);
+                underground = newUnderground;
+            }
+            underground[lineCount] = random.nextInt(10) == 0;
+
+            double lon = round(MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON));
+            double lat = round(MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT));
+            substationBuilder.add(String.format("SUB%07d", lineCount), BASE_VOLTAGES[baseVoltage], lon, lat);
+
+            // random walk with a slowly changing heading, and sometimes a spur starting from the trunk
+            int length = Math.min(segmentCount - generated, 10 + random.nextInt(191));
+            double heading = random.nextDouble() * 2 * Math.PI;
+            double spurLon = lon;
+            double spurLat = lat;
+            int spurStart = random.nextInt(5) == 0 ? random.nextInt(length) : -1;
+            int spurLength = 0;
+            for (int i = 0; i < length; i++) {
+                double fromLon = lon;
+                double fromLat = lat;
+                if (i == spurStart + spurLength + 1 && spurLength > 0) {
+                    // back on the trunk
+                    lon = spurLon;
+                    lat = spurLat;
+                    fromLon = lon;
+                    fromLat = lat;
+                }
+                heading += (random.nextDouble() - 0.5) * 0.5;
+                double span = SPAN * (0.5 + random.nextDouble());
+                lon = round(Math.max(MIN_LON, Math.min(MAX_LON, fromLon + Math.cos(heading) * span)));
+                lat = round(Math.max(MIN_LAT, Math.min(MAX_LAT, fromLat + Math.sin(heading) * span)));
+                if (i == spurStart) {
+                    spurLon = fromLon;
+                    spurLat = fromLat;
+                    spurLength = Math.min(length - i - 1, 1 + random.nextInt(20));
+                    heading += Math.PI / 2;
+                }
+                // segments of open data are not oriented
+                if (random.nextBoolean()) {
+                    lineBuilder.addSegment(lineId, BASE_VOLTAGES[baseVoltage], fromLon, fromLat, lon, lat);
+                } else {
+                    lineBuilder.addSegment(lineId, BASE_VOLTAGES[baseVoltage], lon, lat, fromLon, fromLat);
+                }
+            }
+            generated += length;
+            lineCount++;
+        }
+        boolean[] undergroundLines = new boolean[lineCount];
+        System.arraycopy(underground, 0, undergroundLines, 0, lineCount);
+        return new SyntheticGrid(lineBuilder.build(), undergroundLines, substationBuilder.build());
+    }
+
+    int getSegmentCount() {
+        return lineTable.getSegmentCount();
+    }
+
+    int getLineCount() {
+        return lineTable.size();
+    }
+
+    /**
+     * New line graphic objects, with segments but without branches.
+     */
+    Map<String, LineGraphic> createLines() {
+        return lineTable.toGraphics();
+    }
+
+    Map<String, SubstationGraphic> createSubstations() {
+        return substationTable.toGraphics();
+    }
+
+    private static String getLabel(RteOpenData.BaseVoltage baseVoltage) {
+        for (int i = 0; i < BASE_VOLTAGES.length; i++) {
+            if (BASE_VOLTAGES[i] == baseVoltage) {
+                return BASE_VOLTAGE_LABELS[i];
+            }
+        }
+        throw new AssertionError(baseVoltage);
+    }
+
+    private static void writeRow(BufferedWriter writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(SEPARATOR);
+            }
+            if (fields[i] != null) {
+                writer.write(fields[i]);
+            }
+        }
+        writer.newLine();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private void writeLines(Path file, boolean underground) throws IOException {
+        // column indexes are the ones of RTE open data files, underground ones have one more column before coordinates
+        int coordinatesIndex = underground ? 9 : 8;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            String[] fields = new String[coordinatesIndex + 4];
+            for (int l = 0; l < lineTable.size(); l++) {
+                if (undergroundLines[l] != underground) {
+                    continue;
+                }
+                fields[1] = lineTable.getId(l);
+                fields[5] = getLabel(lineTable.getBaseVoltage(l));
+                for (int s = lineTable.getFirstSegment(l); s < lineTable.getLastSegment(l); s++) {
+                    fields[coordinatesIndex] = format(lineTable.getLon1(s));
+                    fields[coordinatesIndex + 1] = format(lineTable.getLat1(s));
+                    fields[coordinatesIndex + 2] = format(lineTable.getLon2(s));
+                    fields[coordinatesIndex + 3] = format(lineTable.getLat2(s));
+                    writeRow(writer, fields);
+                }
+            }
+        }
+    }
+
+    private void writeSubstations(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            String[] fields = new String[7];
+            for (int i = 0; i < substationTable.size(); i++) {
+                fields[0] = substationTable.getId(i);
+                fields[4] = getLabel(substationTable.getBaseVoltage(i));
+                fields[5] = format(substationTable.getLon(i));
+                fields[6] = format(substationTable.getLat(i));
+                writeRow(writer, fields);
+            }
+        }
+    }
+
+    /**
+     * Write the grid as RTE open data CSV files, in the same directory layout as {@link RteOpenData} expects.
+     */
+    void writeCsv(Path dir) {
+        try {
+            writeSubstations(RteOpenData.getSubstationSources(dir).get(0));
+            writeLines(RteOpenData.getLineSources(dir).get(0), false);
+            writeLines(RteOpenData.getLineSources(dir).get(1), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Synthetic grid shared by all benchmarks, sized by its number of line segments.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+@State(Scope.Benchmark)
+public class SyntheticGridState {
+
+    static final long SEED = 42;
+
+    @Param({"10000", "100000", "1000000"})
+    public int segmentCount;
+
+    SyntheticGrid grid;
+
+    @Setup
+    public void generate() {
+        grid = SyntheticGrid.generate(segmentCount, SEED);
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import com.powsybl.afs.ext.base.ProjectCase;
+import com.powsybl.iidm.network.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Queries directly run on the network of the case, without script compilation nor JSON serialization. The network
+ * is loaded once by the first query, concurrent queries waiting for it, and kept until the case is updated.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+class DirectNetworkQueries implements NetworkQueries {
+
+    /**
+     * Thrown when the network of the case cannot be loaded by this application, queries have then to be run where
+     * the case is stored.
+     */
+    static final class NetworkUnavailableException extends RuntimeException {
+
+        NetworkUnavailableException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    private final ProjectCase projectCase;
+
+    // network loading or loaded, null until first query and once released, guarded by this
+    private CompletableFuture<Network> network;
+
+    DirectNetworkQueries(ProjectCase projectCase) {
+        this.projectCase = Objects.requireNonNull(projectCase);
+    }
+
+    private Network getNetwork() {
+        CompletableFuture<Network> future;
+        boolean loading;
+        synchronized (this) {
+            loading = network == null;
+            if (loading) {
+                network = new CompletableFuture<>();
+            }
+            future = network;
+        }
+        if (loading) {
+            // loaded by the first query, without holding the lock so that releasing the network is never blocked
+            try {
+                future.complete(projectCase.getNetwork());
+            } catch (UnsupportedOperationException e) {
+                future.completeExceptionally(new NetworkUnavailableException(e));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                // next query loads it again
+                synchronized (this) {
+                    if (network == future) {
+                        network = null;
+                    }
+                }
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Release the network, to be called when the case is updated so that next query loads the new one.
+     */
+    synchronized void releaseNetwork() {
+        network = null;
+    }
+
+    @Override
+    public List<IdAndName> getSubstations() {
+        Network loadedNetwork = getNetwork();
+        List<IdAndName> substations = new ArrayList<>(loadedNetwork.getSubstationCount());
+        for (Substation substation : loadedNetwork.getSubstations()) {
+            substations.add(new IdAndName(substation));
+        }
+        return substations;
+    }
+
+    private static String getType(Connectable<?> connectable) {
+        if (connectable.getType() == ConnectableType.SHUNT_COMPENSATOR) {
+            return ((ShuntCompensator) connectable).getbPerSection() > 0 ? "CAPACITOR" : "INDUCTOR";
+        }
+        return connectable.getType().name();
+    }
+
+    @Override
+    public List<VoltageLevelQueryResult> getVoltageLevels(String substationId) {
+        Objects.requireNonNull(substationId);
+        Substation substation = getNetwork().getSubstation(substationId);
+        if (substation == null) {
+            return null;
+        }
+        List<VoltageLevelQueryResult> voltageLevels = new ArrayList<>();
+        for (VoltageLevel voltageLevel : substation.getVoltageLevels()) {
+            List<EquipmentQueryResult> equipments = new ArrayList<>();
+            for (Connectable<?> connectable : voltageLevel.getConnectables(Connectable.class)) {
+                equipments.add(new EquipmentQueryResult(new IdAndName(connectable), getType(connectable)));
+            }
+            for (Switch sw : voltageLevel.getSwitches()) {
+                equipments.add(new EquipmentQueryResult(new IdAndName(sw), "SWITCH"));
+            }
+            voltageLevels.add(new VoltageLevelQueryResult(new IdAndName(voltageLevel), equipments));
+        }
+        return voltageLevels;
+    }
+
+    @Override
+    public List<IdentifiableQueryResult> getIdentifiables() {
+        List<IdentifiableQueryResult> identifiables = new ArrayList<>();
+        for (Substation substation : getNetwork().getSubstations()) {
+            String substationId = substation.getId();
+            identifiables.add(new IdentifiableQueryResult(new IdAndName(substation), "SUBSTATION", substationId));
+            for (VoltageLevel voltageLevel : substation.getVoltageLevels()) {
+                identifiables.add(new IdentifiableQueryResult(new IdAndName(voltageLevel), "VOLTAGE_LEVEL", substationId));
+                for (Connectable<?> connectable : voltageLevel.getConnectables(Connectable.class)) {
+                    identifiables.add(new IdentifiableQueryResult(new IdAndName(connectable), getType(connectable), substationId));
+                }
+                for (Switch sw : voltageLevel.getSwitches()) {
+                    identifiables.add(new IdentifiableQueryResult(new IdAndName(sw), "SWITCH", substationId));
+                }
+            }
+        }
+        return identifiables;
+    }
+}
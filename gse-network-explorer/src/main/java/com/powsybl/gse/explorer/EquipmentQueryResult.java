@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2017, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import java.util.Objects;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+class EquipmentQueryResult {
+
+    private IdAndName idAndName;
+
+    private String type;
+
+    public EquipmentQueryResult() {
+    }
+
+    public EquipmentQueryResult(IdAndName idAndName, String type) {
+        this.idAndName = idAndName;
+        this.type = type;
+    }
+
+    public IdAndName getIdAndName() {
+        return idAndName;
+    }
+
+    public void setIdAndName(IdAndName idAndName) {
+        this.idAndName = idAndName;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idAndName, type);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof EquipmentQueryResult) {
+            EquipmentQueryResult other = (EquipmentQueryResult) obj;
+            return Objects.equals(idAndName, other.idAndName) && Objects.equals(type, other.type);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2017, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import com.powsybl.iidm.network.Identifiable;
+
+import java.util.Objects;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+class IdAndName {
+
+    private String id;
+    private String name;
+
+    public IdAndName() {
+    }
+
+    public IdAndName(String id, String name) {
+        this.id = Objects.requireNonNull(id);
+        this.name = Objects.requireNonNull(name);
+    }
+
+    public IdAndName(Identifiable identifiable) {
+        this(identifiable.getId(), identifiable.getName());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof IdAndName) {
+            IdAndName other = (IdAndName) obj;
+            return Objects.equals(id, other.id) && Objects.equals(name, other.name);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import java.util.Objects;
+
+/**
+ * Substation, voltage level or equipment, with the substation it belongs to.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+class IdentifiableQueryResult {
+
+    private IdAndName idAndName;
+
+    private String type;
+
+    private String substationId;
+
+    public IdentifiableQueryResult() {
+    }
+
+    public IdentifiableQueryResult(IdAndName idAndName, String type, String substationId) {
+        this.idAndName = idAndName;
+        this.type = type;
+        this.substationId = substationId;
+    }
+
+    public IdAndName getIdAndName() {
+        return idAndName;
+    }
+
+    public void setIdAndName(IdAndName idAndName) {
+        this.idAndName = idAndName;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getSubstationId() {
+        return substationId;
+    }
+
+    public void setSubstationId(String substationId) {
+        this.substationId = substationId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idAndName, type, substationId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof IdentifiableQueryResult) {
+            IdentifiableQueryResult other = (IdentifiableQueryResult) obj;
+            return Objects.equals(idAndName, other.idAndName) && Objects.equals(type, other.type)
+                    && Objects.equals(substationId, other.substationId);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        String id = idAndName.getId();
+        String name = idAndName.getName();
+        return (name == null || name.equals(id) ? id : id + " - " + name) + " (" + type + ")";
+    }
+}
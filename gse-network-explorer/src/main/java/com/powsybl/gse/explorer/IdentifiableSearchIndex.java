@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Case insensitive search of identifiables by id, name or type, built once in background so that results are found
+ * in a few milliseconds while typing.
+ * <p>
+ * Texts shorter than a trigram are searched as prefixes in sorted terms, longer ones as substrings: candidates are
+ * identifiables having all trigrams of the text, found in sorted posting lists, and then checked.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class IdentifiableSearchIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdentifiableSearchIndex.class);
+
+    private static final int[] EMPTY_POSTINGS = new int[0];
+
+    private final IdentifiableQueryResult[] identifiables;
+
+    // lower case id, name and type of each identifiable
+    private final String[][] terms;
+
+    // sorted terms and identifiable of each one, for prefix search
+    private final String[] sortedTerms;
+    private final int[] sortedTermIdentifiables;
+
+    // trigram -> sorted identifiables
+    private final Map<Long, int[]> postings;
+
+    private IdentifiableSearchIndex(IdentifiableQueryResult[] identifiables, String[][] terms, String[] sortedTerms,
+                                    int[] sortedTermIdentifiables, Map<Long, int[]> postings) {
+        this.identifiables = identifiables;
+        this.terms = terms;
+        this.sortedTerms = sortedTerms;
+        this.sortedTermIdentifiables = sortedTermIdentifiables;
+        this.postings = postings;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long getTrigram(String term, int i) {
+        return ((long) term.charAt(i) << 32) | ((long) term.charAt(i + 1) << 16) | term.charAt(i + 2);
+    }
+
+    /**
+     * Growable list of identifiables, identifiables being added in increasing order.
+     */
+    private static final class PostingsBuilder {
+
+        private int[] values = new int[4];
+
+        private int size = 0;
+
+        private void add(int identifiable) {
+            if (size > 0 && values[size - 1] == identifiable) {
+                return; // trigram already found in another term of the same identifiable
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = identifiable;
+        }
+
+        private int[] build() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * @param identifiables identifiables to index, only the first one of a given id is kept
+     */
+    static IdentifiableSearchIndex build(List<IdentifiableQueryResult> identifiables) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        Set<String> ids = new HashSet<>();
+        List<IdentifiableQueryResult> uniqueIdentifiables = new ArrayList<>(identifiables.size());
+        for (IdentifiableQueryResult identifiable : identifiables) {
+            if (ids.add(identifiable.getIdAndName().getId())) {
+                uniqueIdentifiables.add(identifiable);
+            }
+        }
+
+        int count = uniqueIdentifiables.size();
+        String[][] terms = new String[count][];
+        List<Map.Entry<String, Integer>> termEntries = new ArrayList<>(count * 3);
+        Map<Long, PostingsBuilder> postingsBuilders = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            IdentifiableQueryResult identifiable = uniqueIdentifiables.get(i);
+            String id = identifiable.getIdAndName().getId();
+            String name = identifiable.getIdAndName().getName();
+            terms[i] = name == null || name.equals(id)
+                    ? new String[] {normalize(id), normalize(identifiable.getType())}
+                    : new String[] {normalize(id), normalize(name), normalize(identifiable.getType())};
+            for (String term : terms[i]) {
+                termEntries.add(new AbstractMap.SimpleImmutableEntry<>(term, i));
+                for (int j = 0; j + 3 <= term.length(); j++) {
+                    postingsBuilders.computeIfAbsent(getTrigram(term, j), k -> new PostingsBuilder()).add(i);
+                }
+            }
+        }
+
+        termEntries.sort(Map.Entry.comparingByKey());
+        String[] sortedTerms = new String[termEntries.size()];
+        int[] sortedTermIdentifiables = new int[termEntries.size()];
+        for (int i = 0; i < termEntries.size(); i++) {
+            sortedTerms[i] = termEntries.get(i).getKey();
+            sortedTermIdentifiables[i] = termEntries.get(i).getValue();
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(postingsBuilders.size() * 2);
+        postingsBuilders.forEach((trigram, builder) -> postings.put(trigram, builder.build()));
+
+        LOGGER.info("Search index of {} identifiables built in {} ms ({} trigrams)", count, stopWatch.getTime(),
+                postings.size());
+
+        return new IdentifiableSearchIndex(uniqueIdentifiables.toArray(new IdentifiableQueryResult[0]), terms,
+                                           sortedTerms, sortedTermIdentifiables, postings);
+    }
+
+    int size() {
+        return identifiables.length;
+    }
+
+    /**
+     * @return at most {@code maxCount} identifiables matching the text, in index order
+     */
+    List<IdentifiableQueryResult> search(String text, int maxCount) {
+        String query = normalize(text.trim());
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return query.length() < 3 ? searchPrefix(query, maxCount) : searchSubstring(query, maxCount);
+    }
+
+    private List<IdentifiableQueryResult> searchPrefix(String prefix, int maxCount) {
+        int first = Arrays.binarySearch(sortedTerms, prefix);
+        if (first < 0) {
+            first = -first - 1;
+        }
+        // an identifiable may have several terms with this prefix
+        BitSet found = new BitSet(identifiables.length);
+        int count = 0;
+        for (int i = first; i < sortedTerms.length && sortedTerms[i].startsWith(prefix) && count < maxCount; i++) {
+            if (!found.get(sortedTermIdentifiables[i])) {
+                found.set(sortedTermIdentifiables[i]);
+                count++;
+            }
+        }
+        List<IdentifiableQueryResult> results = new ArrayList<>(count);
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            results.add(identifiables[i]);
+        }
+        return results;
+    }
+
+    private List<IdentifiableQueryResult> searchSubstring(String query, int maxCount) {
+        List<int[]> trigramPostings = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            trigramPostings.add(postings.getOrDefault(getTrigram(query, i), EMPTY_POSTINGS));
+        }
+        // candidates are taken from the most selective trigram and looked up in other postings by binary search, so
+        // that the cost does not depend on the size of frequent trigram postings
+        trigramPostings.sort(Comparator.comparingInt(p -> p.length));
+        int[] candidates = trigramPostings.get(0);
+        List<IdentifiableQueryResult> results = new ArrayList<>();
+        for (int i = 0; i < candidates.length && results.size() < maxCount; i++) {
+            if (hasAllTrigrams(candidates[i], trigramPostings) && contains(candidates[i], query)) {
+                results.add(identifiables[candidates[i]]);
+            }
+        }
+        return results;
+    }
+
+    private static boolean hasAllTrigrams(int identifiable, List<int[]> trigramPostings) {
+        for (int j = 1; j < trigramPostings.size(); j++) {
+            if (Arrays.binarySearch(trigramPostings.get(j), identifiable) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // trigrams may be found in different terms or at other positions, so text has to be checked
+    private boolean contains(int identifiable, String query) {
+        for (String term : terms[identifiable]) {
+            if (term.contains(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
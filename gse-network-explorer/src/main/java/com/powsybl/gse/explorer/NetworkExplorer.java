@@ -6,21 +6,17 @@
  */
 package com.powsybl.gse.explorer;
 
-import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.powsybl.afs.ext.base.ProjectCase;
 import com.powsybl.afs.ext.base.ProjectCaseListener;
-import com.powsybl.afs.ext.base.ScriptType;
-import com.powsybl.commons.json.JsonUtil;
 import com.powsybl.gse.explorer.icons.*;
 import com.powsybl.gse.spi.GseContext;
 import com.powsybl.gse.spi.ProjectFileViewer;
 import com.powsybl.gse.util.GseUtil;
 import com.powsybl.gse.util.LastTaskOnlyExecutor;
-import com.powsybl.iidm.network.Identifiable;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.control.*;
@@ -28,20 +24,20 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Objects;
-import java.util.ResourceBundle;
+import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
  */
 class NetworkExplorer extends BorderPane implements ProjectFileViewer, ProjectCaseListener {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(NetworkExplorer.class);
+
     private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle("lang.NetworkExplorer");
 
     private static final IdAndName BUSY = new IdAndName("...", "...");
@@ -49,120 +45,74 @@ class NetworkExplorer extends BorderPane implements ProjectFileViewer, ProjectCa
     private static final Color ICON_COLOR = Color.BLACK;
     private static final double ICON_THICKNESS = 1;
 
-    private static class IdAndName {
-
-        private String id;
-        private String name;
-
-        public IdAndName() {
-        }
-
-        public IdAndName(String id, String name) {
-            this.id = Objects.requireNonNull(id);
-            this.name = Objects.requireNonNull(name);
-        }
-
-        public IdAndName(Identifiable identifiable) {
-            this(identifiable.getId(), identifiable.getName());
-        }
-
-        public String getId() {
-            return id;
-        }
-
-        public void setId(String id) {
-            this.id = id;
-        }
-
-        public String getName() {
-            return name;
-        }
-
-        public void setName(String name) {
-            this.name = name;
-        }
-
-        @Override
-        public String toString() {
-            return id;
-        }
-    }
-
-    private static class EquipmentQueryResult {
-
-        private IdAndName idAndName;
+    private static final int MAX_SEARCH_RESULTS = 100;
 
-        private String type;
+    // beyond, list views are reset instead of being notified of each change
+    private static final int MAX_INCREMENTAL_CHANGES = 1000;
 
-        public IdAndName getIdAndName() {
-            return idAndName;
-        }
+    private final LastTaskOnlyExecutor substationExecutor;
 
-        public void setIdAndName(IdAndName idAndName) {
-            this.idAndName = idAndName;
-        }
+    private final LastTaskOnlyExecutor substationDetailsExecutor;
 
-        public String getType() {
-            return type;
-        }
+    private final LastTaskOnlyExecutor searchIndexExecutor;
 
-        public void setType(String type) {
-            this.type = type;
-        }
-    }
+    private final ListView<IdAndName> substationsView = new ListView<>();
+    private final ListView<IdentifiableQueryResult> searchResultsView = new ListView<>();
+    private final TreeView<IdAndName> substationDetailedView = new TreeView<>();
+    private final FlowPane equipmentView = new FlowPane();
+    private final SplitPane splitPane;
+    private final CheckBox showName = new CheckBox(RESOURCE_BUNDLE.getString("ShowNames"));
+    private final TextField searchField = new TextField();
 
-    private static class VoltageLevelQueryResult {
+    private final DirectNetworkQueries directQueries;
 
-        private IdAndName idAndName;
+    private final ScriptNetworkQueries scriptQueries;
 
-        private List<EquipmentQueryResult> equipments;
+    // direct queries until the network of the case cannot be loaded, then scripted ones
+    private volatile NetworkQueries queries;
 
-        public IdAndName getIdAndName() {
-            return idAndName;
-        }
+    private final double rem;
 
-        public void setIdAndName(IdAndName idAndName) {
-            this.idAndName = idAndName;
-        }
+    // following fields are only accessed from the JavaFX application thread
 
-        public List<EquipmentQueryResult> getEquipments() {
-            return equipments;
-        }
+    // substations of the list view, null while loading
+    private SubstationItems substations;
 
-        public void setEquipments(List<EquipmentQueryResult> equipments) {
-            this.equipments = equipments;
-        }
-    }
+    private boolean updatingSubstations = false;
 
-    private final LastTaskOnlyExecutor substationExecutor;
+    // substation of the detail view and its voltage levels, null while loading
+    private IdAndName detailedSubstation;
 
-    private final LastTaskOnlyExecutor substationDetailsExecutor;
+    private List<VoltageLevelQueryResult> detailedVoltageLevels;
 
-    private final ListView<IdAndName> substationsView = new ListView<>();
-    private final TreeView<IdAndName> substationDetailedView = new TreeView<>();
-    private final FlowPane equipmentView = new FlowPane();
-    private final SplitPane splitPane;
-    private final CheckBox showName = new CheckBox(RESOURCE_BUNDLE.getString("ShowNames"));
+    // index of the search field
+    private IdentifiableSearchIndex searchIndex;
 
-    // json
-    private final ObjectMapper mapper = JsonUtil.createObjectMapper();
-    private final JavaType voltageLevelQueryResultListType;
-    private final JavaType idAndNameListType;
+    private boolean updatingSearchResults = false;
 
-    private final double rem;
+    // equipment to select once substation details are displayed
+    private String pendingSelectionId;
 
     private ProjectCase projectCase;
 
     NetworkExplorer(ProjectCase projectCase, GseContext context) {
         this.projectCase = Objects.requireNonNull(projectCase);
+        scriptQueries = new ScriptNetworkQueries(projectCase);
+        directQueries = new DirectNetworkQueries(projectCase);
+        queries = directQueries;
 
         substationExecutor = new LastTaskOnlyExecutor(context.getExecutor());
         substationDetailsExecutor = new LastTaskOnlyExecutor(context.getExecutor());
+        searchIndexExecutor = new LastTaskOnlyExecutor(context.getExecutor());
 
         splitPane = new SplitPane(substationsView, substationDetailedView, equipmentView);
         splitPane.setDividerPositions(0.2, 0.6);
 
-        FlowPane toolBar = new FlowPane(showName);
+        searchField.setPromptText(RESOURCE_BUNDLE.getString("Search"));
+        searchField.setDisable(true);
+
+        FlowPane toolBar = new FlowPane(showName, searchField);
+        toolBar.setHgap(10);
         toolBar.setPadding(new Insets(5, 5, 5, 5));
 
         setCenter(splitPane);
@@ -173,11 +123,24 @@ class NetworkExplorer extends BorderPane implements ProjectFileViewer, ProjectCa
         GseUtil.setWaitingCellFactory(substationDetailedView, BUSY, toString);
 
         showName.selectedProperty().addListener((observable, oldValue, newValue) -> {
-            substationsView.refresh();
+            reorderSubstations(newValue);
             substationDetailedView.refresh();
         });
 
-        substationsView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> refreshSubstationDetailView(newValue));
+        substationsView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            if (!updatingSubstations) {
+                refreshSubstationDetailView(newValue);
+            }
+        });
+
+        // search results replace the substation list while the search field is not empty
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> search(newValue));
+
+        searchResultsView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue != null && !updatingSearchResults) {
+                showIdentifiable(newValue);
+            }
+        });
 
         substationDetailedView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<TreeItem<IdAndName>>() {
             @Override
@@ -186,9 +149,6 @@ class NetworkExplorer extends BorderPane implements ProjectFileViewer, ProjectCa
             }
         });
 
-        voltageLevelQueryResultListType = mapper.getTypeFactory().constructCollectionType(List.class, VoltageLevelQueryResult.class);
-        idAndNameListType = mapper.getTypeFactory().constructCollectionType(List.class, IdAndName.class);
-
         rem = Math.rint(new Text("").getLayoutBounds().getHeight());
 
         projectCase.addListener(this);
@@ -199,13 +159,26 @@ class NetworkExplorer extends BorderPane implements ProjectFileViewer, ProjectCa
         return this;
     }
 
-    private <T> void queryNetwork(String groovyScript, JavaType valueType, Consumer<T> updater, LastTaskOnlyExecutor lastTaskOnlyExecutor) {
+    private <T> T query(Function<NetworkQueries, T> query) {
+        NetworkQueries currentQueries = queries;
+        if (currentQueries != scriptQueries) {
+            try {
+                return query.apply(currentQueries);
+            } catch (DirectNetworkQueries.NetworkUnavailableException e) {
+                // other failures, like a query bug or a loading error, are reported to the user
+                LOGGER.warn("Network cannot be loaded, fallback to scripted queries", e);
+                queries = scriptQueries;
+            }
+        }
+        return query.apply(scriptQueries);
+    }
+
+    private <T> void queryNetwork(Function<NetworkQueries, T> query, Consumer<T> updater, LastTaskOnlyExecutor lastTaskOnlyExecutor) {
         lastTaskOnlyExecutor.execute(() -> {
             try {
-                String json = projectCase.queryNetwork(ScriptType.GROOVY, groovyScript);
-                if (json != null) {
-                    T obj = mapper.readValue(json, valueType);
-                    Platform.runLater(() -> updater.accept(obj));
+                T result = query(query);
+                if (result != null) {
+                    Platform.runLater(() -> updater.accept(result));
                 }
             } catch (Exception e) {
                 Platform.runLater(() -> {
@@ -219,6 +192,113 @@ class NetworkExplorer extends BorderPane implements ProjectFileViewer, ProjectCa
     @Override
     public void view() {
         refreshSubstationsView();
+        buildSearchIndex();
+    }
+
+    /**
+     * Index identifiables of the whole network in background, the search field is usable once done.
+     */
+    private void buildSearchIndex() {
+        queryNetwork(networkQueries -> {
+            List<IdentifiableQueryResult> identifiables = networkQueries.getIdentifiables();
+            return identifiables != null ? IdentifiableSearchIndex.build(identifiables) : null;
+        }, (IdentifiableSearchIndex index) -> {
+            searchIndex = index;
+            searchField.setDisable(index == null);
+            refreshSearchResults();
+        }, searchIndexExecutor);
+    }
+
+    /**
+     * Search again with the new index, as results can change with the network. Unchanged results are kept with
+     * their scroll position, otherwise selected result is selected again, if still found, without being shown again.
+     */
+    private void refreshSearchResults() {
+        String text = searchField.getText();
+        if (text == null || text.trim().isEmpty() || searchIndex == null) {
+            search(text);
+            return;
+        }
+        if (splitPane.getItems().get(0) != searchResultsView) {
+            splitPane.getItems().set(0, searchResultsView);
+        }
+        List<IdentifiableQueryResult> results = searchIndex.search(text, MAX_SEARCH_RESULTS);
+        if (results.equals(searchResultsView.getItems())) {
+            return;
+        }
+        IdentifiableQueryResult selected = searchResultsView.getSelectionModel().getSelectedItem();
+        updatingSearchResults = true;
+        try {
+            searchResultsView.setItems(FXCollections.observableList(results));
+            if (selected != null) {
+                String selectedId = selected.getIdAndName().getId();
+                for (int i = 0; i < results.size(); i++) {
+                    if (results.get(i).getIdAndName().getId().equals(selectedId)) {
+                        searchResultsView.getSelectionModel().select(i);
+                        searchResultsView.scrollTo(i);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            updatingSearchResults = false;
+        }
+    }
+
+    private void search(String text) {
+        if (text == null || text.trim().isEmpty() || searchIndex == null) {
+            splitPane.getItems().set(0, substationsView);
+            searchResultsView.setItems(FXCollections.observableArrayList());
+        } else {
+            // fast enough to be run at each key stroke
+            searchResultsView.setItems(FXCollections.observableList(searchIndex.search(text, MAX_SEARCH_RESULTS)));
+            splitPane.getItems().set(0, searchResultsView);
+        }
+    }
+
+    private IdAndName getSubstation(String substationId) {
+        if (substations != null) {
+            int position = substations.getPosition(substationId);
+            if (position != -1) {
+                return substations.get(position);
+            }
+        }
+        return new IdAndName(substationId, substationId);
+    }
+
+    /**
+     * Display details of the substation containing the identifiable, and select it.
+     */
+    private void showIdentifiable(IdentifiableQueryResult identifiable) {
+        pendingSelectionId = identifiable.getIdAndName().getId();
+        refreshSubstationDetailView(getSubstation(identifiable.getSubstationId()));
+    }
+
+    private void selectPendingItem() {
+        TreeItem<IdAndName> root = substationDetailedView.getRoot();
+        if (pendingSelectionId == null || root == null) {
+            return;
+        }
+        TreeItem<IdAndName> found = null;
+        if (pendingSelectionId.equals(root.getValue().getId())) {
+            found = root;
+        } else {
+            for (TreeItem<IdAndName> voltageLevelItem : root.getChildren()) {
+                if (pendingSelectionId.equals(voltageLevelItem.getValue().getId())) {
+                    found = voltageLevelItem;
+                }
+                for (TreeItem<IdAndName> equipmentItem : voltageLevelItem.getChildren()) {
+                    if (pendingSelectionId.equals(equipmentItem.getValue().getId())) {
+                        found = equipmentItem;
+                    }
+                }
+            }
+        }
+        pendingSelectionId = null;
+        if (found != null) {
+            substationDetailedView.getSelectionModel().select(found);
+            substationDetailedView.scrollTo(substationDetailedView.getRow(found));
+        }
     }
 
     private Node getIcon(String type) {
@@ -258,89 +338,253 @@ class NetworkExplorer extends BorderPane implements ProjectFileViewer, ProjectCa
         return icon;
     }
 
-    private Comparator<IdAndName> getIdAndNameComparator() {
-        boolean selected = showName.isSelected();
-        return (o1, o2) -> {
-            if (selected) {
-                return Objects.compare(o1.name, o2.name, String::compareTo);
-            } else {
-                return o1.id.compareTo(o2.id);
+    /**
+     * Select again a substation after the list changed, or clear the selection if the substation has been removed.
+     */
+    private void reselectSubstation(IdAndName selected, boolean scroll) {
+        int position = selected != null ? substations.getPosition(selected.getId()) : -1;
+        if (position != -1) {
+            if (substationsView.getSelectionModel().getSelectedIndex() != position) {
+                substationsView.getSelectionModel().select(position);
+            }
+            if (scroll) {
+                substationsView.scrollTo(position);
             }
-        };
+        } else {
+            substationsView.getSelectionModel().clearSelection();
+        }
+    }
+
+    /**
+     * Switch the list to the other order, keeping selected substation selected and visible.
+     */
+    private void reorderSubstations(boolean byName) {
+        if (substations == null) {
+            substationsView.refresh();
+            return;
+        }
+        IdAndName selected = substationsView.getSelectionModel().getSelectedItem();
+        updatingSubstations = true;
+        try {
+            substations = new SubstationItems(substations.getSubstations(), byName);
+            substationsView.setItems(substations);
+            reselectSubstation(selected, true);
+        } finally {
+            updatingSubstations = false;
+        }
     }
 
     private void refreshSubstationsView() {
-        substationsView.getItems().setAll(BUSY);
-        String query = "network.substations.collect { [id: it.id, name: it.name] }";
-        queryNetwork(query, idAndNameListType, (List<IdAndName> substationIds) -> {
-            if (substationIds == null) {
-                substationsView.getItems().clear();
+        substations = null;
+        substationsView.setItems(FXCollections.observableArrayList(BUSY));
+        // both orders are sorted in background, the list view only reads visible substations
+        queryNetwork(networkQueries -> {
+            List<IdAndName> substationIds = networkQueries.getSubstations();
+            return substationIds != null ? SortedSubstations.build(substationIds) : null;
+        }, (SortedSubstations sortedSubstations) -> {
+            if (sortedSubstations == null) {
+                substationsView.setItems(FXCollections.observableArrayList());
             } else {
-                substationsView.getItems().setAll(substationIds.stream().sorted(getIdAndNameComparator()).collect(Collectors.toList()));
-                if (substationsView.getItems().size() > 0) {
+                substations = new SubstationItems(sortedSubstations, showName.isSelected());
+                substationsView.setItems(substations);
+                if (sortedSubstations.size() > 0) {
                     substationsView.getSelectionModel().selectFirst();
                 }
             }
         }, substationExecutor);
     }
 
+    /**
+     * Apply substations changed by a network update to the list, without reloading it.
+     */
+    private void updateSubstationsView() {
+        if (substations == null) {
+            refreshSubstationsView(); // still loading
+            return;
+        }
+        SortedSubstations previous = substations.getSubstations();
+        queryNetwork(networkQueries -> {
+            List<IdAndName> substationIds = networkQueries.getSubstations();
+            return substationIds != null ? previous.update(substationIds) : null;
+        }, (SortedSubstations.Change change) -> {
+            // nothing to do if reloaded meanwhile
+            if (change != null && !change.isEmpty() && substations != null) {
+                applySubstationsChange(change);
+            }
+        }, substationExecutor);
+    }
+
+    private void applySubstationsChange(SortedSubstations.Change change) {
+        IdAndName selected = substationsView.getSelectionModel().getSelectedItem();
+        updatingSubstations = true;
+        try {
+            if (substations.getSubstations() == change.getPrevious() && change.size() <= MAX_INCREMENTAL_CHANGES) {
+                // list view keeps its scroll position
+                substations.update(change);
+                reselectSubstation(selected, false);
+            } else {
+                substations = new SubstationItems(change.getSubstations(), showName.isSelected());
+                substationsView.setItems(substations);
+                reselectSubstation(selected, true);
+            }
+        } finally {
+            updatingSubstations = false;
+        }
+
+        // details of a removed substation are cleared, of a renamed one relabelled
+        if (detailedSubstation != null) {
+            int position = substations.getPosition(detailedSubstation.getId());
+            if (position == -1) {
+                refreshSubstationDetailView(null);
+            } else if (!substations.get(position).equals(detailedSubstation)) {
+                detailedSubstation = substations.get(position);
+                if (detailedVoltageLevels != null) {
+                    substationDetailedView.getRoot().setValue(detailedSubstation);
+                }
+            }
+        }
+    }
+
+    private TreeItem<IdAndName> createEquipmentItem(EquipmentQueryResult equipmentQueryResult) {
+        Node icon = getIcon(equipmentQueryResult.getType());
+        return new TreeItem<>(equipmentQueryResult.getIdAndName(), icon);
+    }
+
+    private TreeItem<IdAndName> createVoltageLevelItem(VoltageLevelQueryResult voltageLevelQueryResult) {
+        TreeItem<IdAndName> voltageLevelItem = new TreeItem<>(voltageLevelQueryResult.getIdAndName());
+        for (EquipmentQueryResult equipmentQueryResult : voltageLevelQueryResult.getEquipments()) {
+            voltageLevelItem.getChildren().add(createEquipmentItem(equipmentQueryResult));
+        }
+        voltageLevelItem.setExpanded(true);
+        return voltageLevelItem;
+    }
+
     private void fillSubstationDetailViewWithQueryResults(IdAndName substationIdAndName, List<VoltageLevelQueryResult> voltageLevelQueryResults) {
+        detailedVoltageLevels = voltageLevelQueryResults;
         if (voltageLevelQueryResults != null) {
             TreeItem<IdAndName> substationItem = new TreeItem<>(substationIdAndName);
             substationItem.setExpanded(true);
             for (VoltageLevelQueryResult voltageLevelQueryResult : voltageLevelQueryResults) {
-                TreeItem<IdAndName> voltageLevelItem = new TreeItem<>(voltageLevelQueryResult.getIdAndName());
-                substationItem.getChildren().add(voltageLevelItem);
-                for (EquipmentQueryResult equipmentQueryResult : voltageLevelQueryResult.getEquipments()) {
-                    Node icon = getIcon(equipmentQueryResult.getType());
-                    TreeItem<IdAndName> equipmentItem = new TreeItem<>(equipmentQueryResult.getIdAndName(), icon);
-                    voltageLevelItem.getChildren().add(equipmentItem);
-                }
-                voltageLevelItem.setExpanded(true);
+                substationItem.getChildren().add(createVoltageLevelItem(voltageLevelQueryResult));
             }
             substationDetailedView.setRoot(substationItem);
+            selectPendingItem();
         } else {
             substationDetailedView.setRoot(null);
         }
     }
 
+    /**
+     * Positions of items by id, only the first item of an id being kept.
+     */
+    private static Map<String, Integer> getPositions(List<TreeItem<IdAndName>> items) {
+        Map<String, Integer> positions = new HashMap<>(items.size() * 2);
+        for (int i = 0; i < items.size(); i++) {
+            positions.putIfAbsent(items.get(i).getValue().getId(), i);
+        }
+        return positions;
+    }
+
+    /**
+     * Make children of a tree item the given ones by only inserting and removing items, so that kept items stay
+     * selected and expanded.
+     */
+    private static void updateChildren(TreeItem<IdAndName> parent, List<TreeItem<IdAndName>> children) {
+        Set<TreeItem<IdAndName>> keptChildren = new HashSet<>(children);
+        List<TreeItem<IdAndName>> currentChildren = parent.getChildren();
+        currentChildren.removeIf(child -> !keptChildren.contains(child));
+        for (int i = 0; i < children.size(); i++) {
+            TreeItem<IdAndName> child = children.get(i);
+            if (i >= currentChildren.size() || currentChildren.get(i) != child) {
+                currentChildren.remove(child); // moved
+                currentChildren.add(i, child);
+            }
+        }
+    }
+
+    private void updateEquipmentItems(TreeItem<IdAndName> voltageLevelItem, List<EquipmentQueryResult> previousResults,
+                                      List<EquipmentQueryResult> equipmentQueryResults) {
+        // tree items are at the same positions as the query results they have been created from
+        List<TreeItem<IdAndName>> items = voltageLevelItem.getChildren();
+        Map<String, Integer> positions = getPositions(items);
+        List<TreeItem<IdAndName>> newItems = new ArrayList<>(equipmentQueryResults.size());
+        for (EquipmentQueryResult equipmentQueryResult : equipmentQueryResults) {
+            Integer position = positions.remove(equipmentQueryResult.getIdAndName().getId());
+            if (position == null) {
+                newItems.add(createEquipmentItem(equipmentQueryResult));
+            } else {
+                TreeItem<IdAndName> item = items.get(position);
+                EquipmentQueryResult previousResult = previousResults.get(position);
+                if (!previousResult.equals(equipmentQueryResult)) {
+                    item.setValue(equipmentQueryResult.getIdAndName());
+                    if (!Objects.equals(previousResult.getType(), equipmentQueryResult.getType())) {
+                        item.setGraphic(getIcon(equipmentQueryResult.getType()));
+                    }
+                }
+                newItems.add(item);
+            }
+        }
+        updateChildren(voltageLevelItem, newItems);
+    }
+
+    /**
+     * Apply voltage levels and equipments changed by a network update to the tree, without rebuilding it.
+     */
+    private void updateSubstationDetailViewWithQueryResults(List<VoltageLevelQueryResult> voltageLevelQueryResults) {
+        TreeItem<IdAndName> substationItem = substationDetailedView.getRoot();
+        List<TreeItem<IdAndName>> items = substationItem.getChildren();
+        Map<String, Integer> positions = getPositions(items);
+        List<TreeItem<IdAndName>> newItems = new ArrayList<>(voltageLevelQueryResults.size());
+        for (VoltageLevelQueryResult voltageLevelQueryResult : voltageLevelQueryResults) {
+            Integer position = positions.remove(voltageLevelQueryResult.getIdAndName().getId());
+            if (position == null) {
+                newItems.add(createVoltageLevelItem(voltageLevelQueryResult));
+            } else {
+                TreeItem<IdAndName> item = items.get(position);
+                VoltageLevelQueryResult previousResult = detailedVoltageLevels.get(position);
+                if (!previousResult.getIdAndName().equals(voltageLevelQueryResult.getIdAndName())) {
+                    item.setValue(voltageLevelQueryResult.getIdAndName());
+                }
+                updateEquipmentItems(item, previousResult.getEquipments(), voltageLevelQueryResult.getEquipments());
+                newItems.add(item);
+            }
+        }
+        updateChildren(substationItem, newItems);
+        detailedVoltageLevels = voltageLevelQueryResults;
+    }
+
+    private void updateSubstationDetailView() {
+        IdAndName substationIdAndName = detailedSubstation;
+        if (substationIdAndName == null) {
+            return;
+        }
+        queryNetwork(networkQueries -> networkQueries.getVoltageLevels(substationIdAndName.getId()),
+            (List<VoltageLevelQueryResult> voltageLevelQueryResults) -> {
+                // nothing to do if another substation is displayed meanwhile
+                if (voltageLevelQueryResults == null || detailedSubstation == null
+                        || !detailedSubstation.getId().equals(substationIdAndName.getId())) {
+                    return;
+                }
+                if (detailedVoltageLevels == null) {
+                    // update replaced loading of the substation
+                    fillSubstationDetailViewWithQueryResults(detailedSubstation, voltageLevelQueryResults);
+                } else {
+                    updateSubstationDetailViewWithQueryResults(voltageLevelQueryResults);
+                }
+            },
+            substationDetailsExecutor);
+    }
+
     private void refreshSubstationDetailView(IdAndName substationIdAndName) {
+        detailedVoltageLevels = null;
         if (substationIdAndName != null && substationIdAndName != BUSY) {
+            detailedSubstation = substationIdAndName;
             substationDetailedView.setRoot(new TreeItem<>(BUSY));
-            String query = String.join(System.lineSeparator(),
-                    "def s = network.getSubstation('" + substationIdAndName.getId() + "')",
-                    "s.voltageLevels.collect {",
-                    "    [",
-                    "        idAndName: [",
-                    "                       id: it.id,",
-                    "                       name: it.name",
-                    "                    ],",
-                    "        equipments: it.connectables.collect {",
-                    "                        [",
-                    "                            type: it.type.name() == 'SHUNT_COMPENSATOR' ? (it.getbPerSection() > 0 ? 'CAPACITOR' : 'INDUCTOR'): it.type,",
-                    "                            idAndName: [",
-                    "                                           id: it.id,",
-                    "                                           name: it.name",
-                    "                                       ]",
-                    "                        ]",
-                    "                    }",
-                    "                    +",
-                    "                    it.switches.collect {",
-                    "                        [",
-                    "                            type: 'SWITCH',",
-                    "                            idAndName: [",
-                    "                                           id: it.id,",
-                    "                                           name: it.name",
-                    "                                       ]",
-                    "                        ]",
-                    "                    }",
-                    "    ]",
-                    "}",
-                    "");
-            queryNetwork(query, voltageLevelQueryResultListType,
+            queryNetwork(networkQueries -> networkQueries.getVoltageLevels(substationIdAndName.getId()),
                 (List<VoltageLevelQueryResult> voltageLevelQueryResults) -> fillSubstationDetailViewWithQueryResults(substationIdAndName, voltageLevelQueryResults),
                 substationDetailsExecutor);
         } else {
+            detailedSubstation = null;
             substationDetailedView.setRoot(null);
         }
     }
@@ -351,12 +595,20 @@ class NetworkExplorer extends BorderPane implements ProjectFileViewer, ProjectCa
 
     @Override
     public void networkUpdated() {
-        Platform.runLater(this::refreshSubstationsView);
+        directQueries.releaseNetwork();
+        Platform.runLater(() -> {
+            // only changes are applied, so that selection and scroll position are kept
+            updateSubstationsView();
+            updateSubstationDetailView();
+            // previous index is kept until the new one is built
+            buildSearchIndex();
+        });
     }
 
     @Override
     public void dispose() {
         projectCase.removeListener(this);
+        directQueries.releaseNetwork();
     }
 
 }
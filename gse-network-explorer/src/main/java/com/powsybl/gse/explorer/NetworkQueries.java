@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import java.util.List;
+
+/**
+ * Fixed queries of the network explorer, returning results that can be directly displayed.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+interface NetworkQueries {
+
+    List<IdAndName> getSubstations();
+
+    /**
+     * @return voltage levels of the substation with their equipments, or {@code null} if unknown substation
+     */
+    List<VoltageLevelQueryResult> getVoltageLevels(String substationId);
+
+    /**
+     * @return all substations, voltage levels and equipments, an equipment connected to several substations being
+     * listed once per substation
+     */
+    List<IdentifiableQueryResult> getIdentifiables();
+}
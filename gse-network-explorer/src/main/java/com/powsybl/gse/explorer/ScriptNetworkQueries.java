@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powsybl.afs.ext.base.ProjectCase;
+import com.powsybl.afs.ext.base.ScriptType;
+import com.powsybl.commons.json.JsonUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Queries run by the case as Groovy scripts returning JSON, for cases whose network cannot be loaded by the
+ * application.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+class ScriptNetworkQueries implements NetworkQueries {
+
+    private static final ScriptTemplate SUBSTATIONS_QUERY = new ScriptTemplate(
+            "network.substations.collect { [id: it.id, name: it.name] }");
+
+    private static final ScriptTemplate VOLTAGE_LEVELS_QUERY = new ScriptTemplate(Collections.singletonList("substationId"),
+            "def s = network.getSubstation(substationId)",
+            "s.voltageLevels.collect {",
+            "    [",
+            "        idAndName: [",
+            "                       id: it.id,",
+            "                       name: it.name",
+            "                    ],",
+            "        equipments: it.connectables.collect {",
+            "                        [",
+            "                            type: it.type.name() == 'SHUNT_COMPENSATOR' ? (it.getbPerSection() > 0 ? 'CAPACITOR' : 'INDUCTOR'): it.type,",
+            "                            idAndName: [",
+            "                                           id: it.id,",
+            "                                           name: it.name",
+            "                                       ]",
+            "                        ]",
+            "                    }",
+            "                    +",
+            "                    it.switches.collect {",
+            "                        [",
+            "                            type: 'SWITCH',",
+            "                            idAndName: [",
+            "                                           id: it.id,",
+            "                                           name: it.name",
+            "                                       ]",
+            "                        ]",
+            "                    }",
+            "    ]",
+            "}",
+            "");
+
+    private static final ScriptTemplate IDENTIFIABLES_QUERY = new ScriptTemplate(
+            "network.substations.collectMany { s ->",
+            "    [[idAndName: [id: s.id, name: s.name], type: 'SUBSTATION', substationId: s.id]]",
+            "    +",
+            "    s.voltageLevels.collectMany { vl ->",
+            "        [[idAndName: [id: vl.id, name: vl.name], type: 'VOLTAGE_LEVEL', substationId: s.id]]",
+            "        +",
+            "        vl.connectables.collect {",
+            "            [",
+            "                idAndName: [id: it.id, name: it.name],",
+            "                type: it.type.name() == 'SHUNT_COMPENSATOR' ? (it.getbPerSection() > 0 ? 'CAPACITOR' : 'INDUCTOR'): it.type,",
+            "                substationId: s.id",
+            "            ]",
+            "        }",
+            "        +",
+            "        vl.switches.collect {",
+            "            [idAndName: [id: it.id, name: it.name], type: 'SWITCH', substationId: s.id]",
+            "        }",
+            "    }",
+            "}",
+            "");
+
+    private final ProjectCase projectCase;
+
+    private final ObjectMapper mapper = JsonUtil.createObjectMapper();
+    private final JavaType voltageLevelQueryResultListType;
+    private final JavaType idAndNameListType;
+    private final JavaType identifiableQueryResultListType;
+
+    ScriptNetworkQueries(ProjectCase projectCase) {
+        this.projectCase = Objects.requireNonNull(projectCase);
+        voltageLevelQueryResultListType = mapper.getTypeFactory().constructCollectionType(List.class, VoltageLevelQueryResult.class);
+        idAndNameListType = mapper.getTypeFactory().constructCollectionType(List.class, IdAndName.class);
+        identifiableQueryResultListType = mapper.getTypeFactory().constructCollectionType(List.class, IdentifiableQueryResult.class);
+    }
+
+    private <T> T queryNetwork(String groovyScript, JavaType valueType) {
+        String json = projectCase.queryNetwork(ScriptType.GROOVY, groovyScript);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return mapper.readValue(json, valueType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<IdAndName> getSubstations() {
+        return queryNetwork(SUBSTATIONS_QUERY.bind(), idAndNameListType);
+    }
+
+    @Override
+    public List<VoltageLevelQueryResult> getVoltageLevels(String substationId) {
+        Objects.requireNonNull(substationId);
+        return queryNetwork(VOLTAGE_LEVELS_QUERY.bind(substationId), voltageLevelQueryResultListType);
+    }
+
+    @Override
+    public List<IdentifiableQueryResult> getIdentifiables() {
+        return queryNetwork(IDENTIFIABLES_QUERY.bind(), identifiableQueryResultListType);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Groovy script with a constant body and string variables. Values are bound by declaring variables before the body,
+ * as escaped literals, so that a value cannot change the meaning of the script whatever its characters.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class ScriptTemplate {
+
+    private final List<String> variables;
+
+    private final String body;
+
+    ScriptTemplate(List<String> variables, String... bodyLines) {
+        this.variables = Objects.requireNonNull(variables);
+        for (String variable : variables) {
+            if (variable.isEmpty() || !Character.isJavaIdentifierStart(variable.charAt(0))
+                    || !variable.chars().skip(1).allMatch(Character::isJavaIdentifierPart)) {
+                throw new IllegalArgumentException("Invalid variable name '" + variable + "'");
+            }
+        }
+        body = String.join(System.lineSeparator(), bodyLines);
+    }
+
+    ScriptTemplate(String... bodyLines) {
+        this(Collections.emptyList(), bodyLines);
+    }
+
+    /**
+     * Groovy single quoted string literal, which is never interpolated.
+     */
+    static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2);
+        builder.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\'':
+                    builder.append("\\'");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+                    break;
+            }
+        }
+        return builder.append('\'').toString();
+    }
+
+    /**
+     * @param values values of variables, in declaration order
+     */
+    String bind(String... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " values, got " + values.length);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            builder.append("def ").append(variables.get(i)).append(" = ").append(quote(Objects.requireNonNull(values[i])))
+                    .append(System.lineSeparator());
+        }
+        return builder.append(body).toString();
+    }
+}
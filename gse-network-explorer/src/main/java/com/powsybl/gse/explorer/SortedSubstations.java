@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Substations of a network with their orders by id and by name, both sorted once in background. Views are read only
+ * lists only resolving the items they are asked for, so that a virtualized list view can switch from one order to the
+ * other without sorting nor copying anything.
+ * <p>
+ * After a network update, substations are compared to previous ones by id and value, so that only added, removed or
+ * renamed substations have to be changed in views.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class SortedSubstations {
+
+    private static final Comparator<IdAndName> ID_COMPARATOR = Comparator.comparing(IdAndName::getId);
+
+    private static final Comparator<IdAndName> NAME_COMPARATOR = Comparator.comparing(IdAndName::getName, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ID_COMPARATOR);
+
+    private final IdAndName[] substations;
+
+    // position in each order -> substation
+    private final int[] idOrder;
+    private final int[] nameOrder;
+
+    // substation -> position in each order
+    private final int[] idPositions;
+    private final int[] namePositions;
+
+    private final Map<String, Integer> indexes;
+
+    /**
+     * Substations changed by a network update, as positions in the views of each order.
+     */
+    static final class Change {
+
+        private final SortedSubstations previous;
+
+        private final SortedSubstations substations;
+
+        // removed positions in previous views and added positions in new views, by id then by name, in increasing order
+        private final int[][] removedPositions;
+        private final int[][] addedPositions;
+
+        private Change(SortedSubstations previous, SortedSubstations substations) {
+            this.previous = previous;
+            this.substations = substations;
+            removedPositions = new int[][] {previous.getPositionsNotIn(substations, false), previous.getPositionsNotIn(substations, true)};
+            addedPositions = new int[][] {substations.getPositionsNotIn(previous, false), substations.getPositionsNotIn(previous, true)};
+        }
+
+        SortedSubstations getPrevious() {
+            return previous;
+        }
+
+        SortedSubstations getSubstations() {
+            return substations;
+        }
+
+        int[] getRemovedPositions(boolean byName) {
+            return removedPositions[byName ? 1 : 0];
+        }
+
+        int[] getAddedPositions(boolean byName) {
+            return addedPositions[byName ? 1 : 0];
+        }
+
+        /**
+         * @return number of removed and added substations, a renamed substation being both
+         */
+        int size() {
+            return removedPositions[0].length + addedPositions[0].length;
+        }
+
+        boolean isEmpty() {
+            return size() == 0;
+        }
+    }
+
+    private SortedSubstations(IdAndName[] substations) {
+        this.substations = substations;
+        idOrder = sort(substations, ID_COMPARATOR);
+        nameOrder = sort(substations, NAME_COMPARATOR);
+        idPositions = invert(idOrder);
+        namePositions = invert(nameOrder);
+        indexes = new HashMap<>(substations.length * 2);
+        for (int i = 0; i < substations.length; i++) {
+            indexes.put(substations[i].getId(), i);
+        }
+    }
+
+    static SortedSubstations build(List<IdAndName> substations) {
+        return new SortedSubstations(substations.toArray(new IdAndName[0]));
+    }
+
+    /**
+     * Compare substations of an updated network to these ones. Unchanged substations are the instances of this object,
+     * so that they stay selected in views.
+     */
+    Change update(List<IdAndName> newSubstations) {
+        IdAndName[] updatedSubstations = new IdAndName[newSubstations.size()];
+        for (int i = 0; i < updatedSubstations.length; i++) {
+            IdAndName substation = newSubstations.get(i);
+            Integer index = indexes.get(substation.getId());
+            updatedSubstations[i] = index != null && substations[index].equals(substation) ? substations[index] : substation;
+        }
+        return new Change(this, new SortedSubstations(updatedSubstations));
+    }
+
+    private boolean contains(IdAndName substation) {
+        Integer index = indexes.get(substation.getId());
+        return index != null && substations[index] == substation;
+    }
+
+    private int[] getPositionsNotIn(SortedSubstations other, boolean byName) {
+        int[] order = byName ? nameOrder : idOrder;
+        return IntStream.range(0, order.length)
+                .filter(position -> !other.contains(substations[order[position]]))
+                .toArray();
+    }
+
+    private static int[] sort(IdAndName[] substations, Comparator<IdAndName> comparator) {
+        return IntStream.range(0, substations.length)
+                .boxed()
+                .sorted((i1, i2) -> comparator.compare(substations[i1], substations[i2]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static int[] invert(int[] order) {
+        int[] positions = new int[order.length];
+        for (int position = 0; position < order.length; position++) {
+            positions[order[position]] = position;
+        }
+        return positions;
+    }
+
+    int size() {
+        return substations.length;
+    }
+
+    /**
+     * @return substations sorted by name if {@code byName}, by id otherwise
+     */
+    List<IdAndName> getView(boolean byName) {
+        int[] order = byName ? nameOrder : idOrder;
+        return new AbstractList<IdAndName>() {
+            @Override
+            public IdAndName get(int position) {
+                return substations[order[position]];
+            }
+
+            @Override
+            public int size() {
+                return order.length;
+            }
+        };
+    }
+
+    /**
+     * @return position of a substation in the view of an order, or -1 if not found
+     */
+    int getPosition(String id, boolean byName) {
+        Integer index = indexes.get(id);
+        if (index == null) {
+            return -1;
+        }
+        return byName ? namePositions[index] : idPositions[index];
+    }
+}
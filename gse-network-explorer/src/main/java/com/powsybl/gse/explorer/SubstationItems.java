@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Observable view of substations in one order. A network update only fires removal and addition of changed
+ * substations, so that a list view keeps its selection and scroll position.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class SubstationItems extends ObservableListBase<IdAndName> {
+
+    private final boolean byName;
+
+    private SortedSubstations substations;
+
+    private List<IdAndName> view;
+
+    SubstationItems(SortedSubstations substations, boolean byName) {
+        this.substations = Objects.requireNonNull(substations);
+        this.byName = byName;
+        view = substations.getView(byName);
+    }
+
+    SortedSubstations getSubstations() {
+        return substations;
+    }
+
+    boolean isByName() {
+        return byName;
+    }
+
+    /**
+     * @return position of a substation, or -1 if not found
+     */
+    int getPosition(String id) {
+        return substations.getPosition(id, byName);
+    }
+
+    void update(SortedSubstations.Change change) {
+        if (change.getPrevious() != substations) {
+            throw new IllegalArgumentException("Change is not based on current substations");
+        }
+        List<IdAndName> previousView = view;
+        substations = change.getSubstations();
+        view = substations.getView(byName);
+
+        // removal from the end so that positions stay valid, then additions in increasing order as unchanged
+        // substations keep their relative order
+        int[] removedPositions = change.getRemovedPositions(byName);
+        beginChange();
+        for (int i = removedPositions.length - 1; i >= 0; i--) {
+            nextRemove(removedPositions[i], previousView.get(removedPositions[i]));
+        }
+        for (int position : change.getAddedPositions(byName)) {
+            nextAdd(position, position + 1);
+        }
+        endChange();
+    }
+
+    @Override
+    public IdAndName get(int index) {
+        return view.get(index);
+    }
+
+    @Override
+    public int size() {
+        return view.size();
+    }
+}
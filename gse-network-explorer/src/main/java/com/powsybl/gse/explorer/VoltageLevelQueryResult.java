@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2017, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import java.util.List;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+class VoltageLevelQueryResult {
+
+    private IdAndName idAndName;
+
+    private List<EquipmentQueryResult> equipments;
+
+    public VoltageLevelQueryResult() {
+    }
+
+    public VoltageLevelQueryResult(IdAndName idAndName, List<EquipmentQueryResult> equipments) {
+        this.idAndName = idAndName;
+        this.equipments = equipments;
+    }
+
+    public IdAndName getIdAndName() {
+        return idAndName;
+    }
+
+    public void setIdAndName(IdAndName idAndName) {
+        this.idAndName = idAndName;
+    }
+
+    public List<EquipmentQueryResult> getEquipments() {
+        return equipments;
+    }
+
+    public void setEquipments(List<EquipmentQueryResult> equipments) {
+        this.equipments = equipments;
+    }
+}
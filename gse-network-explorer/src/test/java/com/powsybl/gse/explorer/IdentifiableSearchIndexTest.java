@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public class IdentifiableSearchIndexTest {
+
+    private IdentifiableSearchIndex index;
+
+    private static IdentifiableQueryResult createIdentifiable(String id, String name, String type, String substationId) {
+        return new IdentifiableQueryResult(new IdAndName(id, name), type, substationId);
+    }
+
+    @Before
+    public void setUp() {
+        List<IdentifiableQueryResult> identifiables = new ArrayList<>();
+        identifiables.add(createIdentifiable("SUB1", "Paris Nord", "SUBSTATION", "SUB1"));
+        identifiables.add(createIdentifiable("VL1", "Paris Nord 400", "VOLTAGE_LEVEL", "SUB1"));
+        identifiables.add(createIdentifiable("LINE_AB", "LINE_AB", "LINE", "SUB1"));
+        identifiables.add(createIdentifiable("ABCD", "CDEF", "LOAD", "SUB1"));
+        identifiables.add(createIdentifiable("SUB2", "SUB2", "SUBSTATION", "SUB2"));
+        // a line is listed once per substation
+        identifiables.add(createIdentifiable("LINE_AB", "LINE_AB", "LINE", "SUB2"));
+        index = IdentifiableSearchIndex.build(identifiables);
+    }
+
+    private List<String> search(String text, int maxCount) {
+        return index.search(text, maxCount).stream()
+                .map(identifiable -> identifiable.getIdAndName().getId())
+                .collect(Collectors.toList());
+    }
+
+    private List<String> search(String text) {
+        return search(text, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testEmptyText() {
+        assertEquals(0, search("").size());
+        assertEquals(0, search("  ").size());
+    }
+
+    @Test
+    public void testShortPrefix() {
+        assertEquals(Arrays.asList("SUB1", "VL1"), search("pa"));
+        // id and type both start with l, but the line is only found once
+        assertEquals(Arrays.asList("LINE_AB", "ABCD"), search("l"));
+        assertEquals(Arrays.asList("SUB1", "SUB2"), search("su"));
+        // short texts only match the beginning of terms
+        assertEquals(0, search("b1").size());
+        assertEquals(0, search("zz").size());
+    }
+
+    @Test
+    public void testSubstring() {
+        assertEquals(Arrays.asList("SUB1", "VL1"), search("is no"));
+        assertEquals(Collections.singletonList("VL1"), search("nord 4"));
+        assertEquals(Arrays.asList("SUB1", "SUB2"), search("substation"));
+        assertEquals(Collections.singletonList("LINE_AB"), search("e_a"));
+        assertEquals(0, search("xyz").size());
+    }
+
+    @Test
+    public void testTrigramsOfDifferentTerms() {
+        // abc and bcd are trigrams of the id, cde and def of the name, but no term contains the text
+        assertEquals(Collections.singletonList("ABCD"), search("abcd"));
+        assertEquals(Collections.singletonList("ABCD"), search("cdef"));
+        assertEquals(0, search("abcdef").size());
+        // trigrams of a term but not at consecutive positions
+        assertEquals(0, search("parnord").size());
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        assertEquals(Arrays.asList("SUB1", "VL1"), search("PARIS"));
+        assertEquals(Arrays.asList("SUB1", "VL1"), search("PaRiS nOrD"));
+        assertEquals(Arrays.asList("SUB1", "VL1"), search("pA"));
+        assertEquals(Collections.singletonList("LINE_AB"), search("Line_Ab"));
+    }
+
+    @Test
+    public void testMaxCount() {
+        assertEquals(Collections.singletonList("SUB1"), search("paris", 1));
+        assertEquals(Arrays.asList("SUB1", "SUB2"), search("sub", 2));
+        assertEquals(1, search("su", 1).size());
+        assertEquals(0, search("paris", 0).size());
+    }
+
+    @Test
+    public void testDuplicateIds() {
+        assertEquals(5, index.size());
+        List<IdentifiableQueryResult> results = index.search("line_ab", Integer.MAX_VALUE);
+        assertEquals(1, results.size());
+        // first one is kept
+        assertEquals("SUB1", results.get(0).getSubstationId());
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import groovy.lang.GroovyShell;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public class ScriptTemplateTest {
+
+    private static final ScriptTemplate TEMPLATE = new ScriptTemplate(Collections.singletonList("id"), "id");
+
+    private static Object evaluate(String script) {
+        return new GroovyShell().evaluate(script);
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals("'abc'", ScriptTemplate.quote("abc"));
+        assertEquals("''", ScriptTemplate.quote(""));
+        assertEquals("'a\\'b'", ScriptTemplate.quote("a'b"));
+        assertEquals("'a\\\\b'", ScriptTemplate.quote("a\\b"));
+        assertEquals("'a\\nb\\rc'", ScriptTemplate.quote("a\nb\rc"));
+        assertEquals("'a$b'", ScriptTemplate.quote("a$b"));
+        assertEquals("'\\\\u0027'", ScriptTemplate.quote("\\u0027"));
+    }
+
+    @Test
+    public void testBind() {
+        String[] ids = {"abc", "", "a'b", "a\\b", "a\\", "a\nb\rc", "a$b", "${1 + 1}", "a' + 'b"};
+        for (String id : ids) {
+            assertEquals(id, evaluate(TEMPLATE.bind(id)));
+        }
+    }
+
+    @Test
+    public void testUnicodeEscape() {
+        // Groovy replaces unicode escapes before tokenizing the script, so the unicode escape of a quote would
+        // close the literal, but a backslash preceded by an escaped one does not start a unicode escape
+        String[] ids = {"\\u0027", "a\\u0027 + \\u0027b", "\\\\u0027", "\\\\\\u0027"};
+        for (String id : ids) {
+            assertEquals(id, evaluate(TEMPLATE.bind(id)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidVariable() {
+        new ScriptTemplate(Collections.singletonList("a b"), "a b");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidValueCount() {
+        TEMPLATE.bind();
+    }
+}
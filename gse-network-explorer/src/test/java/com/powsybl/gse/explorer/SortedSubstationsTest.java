@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.explorer;
+
+import javafx.collections.ListChangeListener;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public class SortedSubstationsTest {
+
+    private static IdAndName createSubstation(String id, String name) {
+        // name is not required by JSON decoding of scripted queries
+        IdAndName substation = new IdAndName();
+        substation.setId(id);
+        substation.setName(name);
+        return substation;
+    }
+
+    private static List<String> getIds(List<IdAndName> substations) {
+        return substations.stream().map(IdAndName::getId).collect(Collectors.toList());
+    }
+
+    private static void assertPositions(SortedSubstations substations, boolean byName) {
+        List<IdAndName> view = substations.getView(byName);
+        assertEquals(substations.size(), view.size());
+        for (int position = 0; position < view.size(); position++) {
+            assertEquals(position, substations.getPosition(view.get(position).getId(), byName));
+        }
+        assertEquals(-1, substations.getPosition("UNKNOWN", byName));
+    }
+
+    @Test
+    public void testOrders() {
+        SortedSubstations substations = SortedSubstations.build(Arrays.asList(createSubstation("S3", "b"),
+                                                                              createSubstation("S1", "a"),
+                                                                              createSubstation("S2", null),
+                                                                              createSubstation("S4", "a"),
+                                                                              createSubstation("S0", "B")));
+        assertEquals(Arrays.asList("S0", "S1", "S2", "S3", "S4"), getIds(substations.getView(false)));
+        // null names first, same names ordered by id
+        assertEquals(Arrays.asList("S2", "S0", "S1", "S4", "S3"), getIds(substations.getView(true)));
+        assertPositions(substations, false);
+        assertPositions(substations, true);
+    }
+
+    @Test
+    public void testEmpty() {
+        SortedSubstations substations = SortedSubstations.build(Collections.emptyList());
+        assertEquals(0, substations.size());
+        assertTrue(substations.getView(false).isEmpty());
+        assertTrue(substations.getView(true).isEmpty());
+        assertEquals(-1, substations.getPosition("S1", true));
+    }
+
+    @Test
+    public void testUpdate() {
+        SortedSubstations previous = SortedSubstations.build(Arrays.asList(createSubstation("S1", "a"),
+                                                                           createSubstation("S2", "b"),
+                                                                           createSubstation("S3", "c"),
+                                                                           createSubstation("S4", "d")));
+        // S2 renamed, S3 removed, S5 added
+        SortedSubstations.Change change = previous.update(Arrays.asList(createSubstation("S4", "d"),
+                                                                        createSubstation("S2", "0"),
+                                                                        createSubstation("S1", "a"),
+                                                                        createSubstation("S5", "c5")));
+        assertSame(previous, change.getPrevious());
+        // a renamed substation is both removed and added
+        assertEquals(4, change.size());
+        assertFalse(change.isEmpty());
+        assertArrayEquals(new int[] {1, 2}, change.getRemovedPositions(false));
+        assertArrayEquals(new int[] {1, 2}, change.getRemovedPositions(true));
+        assertArrayEquals(new int[] {1, 3}, change.getAddedPositions(false));
+        assertArrayEquals(new int[] {0, 2}, change.getAddedPositions(true));
+
+        // unchanged substations are the previous instances
+        SortedSubstations substations = change.getSubstations();
+        List<IdAndName> previousView = previous.getView(false);
+        List<IdAndName> view = substations.getView(false);
+        assertEquals(Arrays.asList("S1", "S2", "S4", "S5"), getIds(view));
+        assertSame(previousView.get(0), view.get(0));
+        assertNotSame(previousView.get(1), view.get(1));
+        assertSame(previousView.get(3), view.get(2));
+        assertEquals(Arrays.asList("S2", "S1", "S5", "S4"), getIds(substations.getView(true)));
+        assertPositions(substations, false);
+        assertPositions(substations, true);
+    }
+
+    @Test
+    public void testEmptyUpdate() {
+        SortedSubstations previous = SortedSubstations.build(Arrays.asList(createSubstation("S1", "a"),
+                                                                           createSubstation("S2", null)));
+        SortedSubstations.Change change = previous.update(Arrays.asList(createSubstation("S2", null),
+                                                                        createSubstation("S1", "a")));
+        assertTrue(change.isEmpty());
+        for (boolean byName : new boolean[] {false, true}) {
+            List<IdAndName> previousView = previous.getView(byName);
+            List<IdAndName> view = change.getSubstations().getView(byName);
+            for (int i = 0; i < view.size(); i++) {
+                assertSame(previousView.get(i), view.get(i));
+            }
+        }
+    }
+
+    /**
+     * Replay changes fired by substation items on a copy of previous items, it has to give new items.
+     */
+    private static void assertReplayed(SortedSubstations.Change change, boolean byName) {
+        SubstationItems items = new SubstationItems(change.getPrevious(), byName);
+        List<IdAndName> replayed = new ArrayList<>(items);
+        items.addListener((ListChangeListener<IdAndName>) c -> {
+            while (c.next()) {
+                assertFalse(c.wasPermutated());
+                assertFalse(c.wasUpdated());
+                if (c.wasRemoved()) {
+                    List<IdAndName> removed = replayed.subList(c.getFrom(), c.getFrom() + c.getRemovedSize());
+                    assertEquals(c.getRemoved(), removed);
+                    removed.clear();
+                }
+                if (c.wasAdded()) {
+                    replayed.addAll(c.getFrom(), c.getAddedSubList());
+                }
+            }
+        });
+        items.update(change);
+
+        assertSame(change.getSubstations(), items.getSubstations());
+        List<IdAndName> expected = change.getSubstations().getView(byName);
+        assertEquals(expected.size(), replayed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), replayed.get(i));
+        }
+    }
+
+    @Test
+    public void testItemsUpdate() {
+        SortedSubstations previous = SortedSubstations.build(Arrays.asList(createSubstation("S1", "a"),
+                                                                           createSubstation("S2", "b"),
+                                                                           createSubstation("S3", "c"),
+                                                                           createSubstation("S4", "d")));
+        SortedSubstations.Change change = previous.update(Arrays.asList(createSubstation("S4", "d"),
+                                                                        createSubstation("S2", "0"),
+                                                                        createSubstation("S1", "a"),
+                                                                        createSubstation("S5", "c5")));
+        assertReplayed(change, false);
+        assertReplayed(change, true);
+    }
+
+    @Test
+    public void testRandomItemsUpdates() {
+        Random random = new Random(1);
+        for (int iteration = 0; iteration < 100; iteration++) {
+            Map<String, IdAndName> substations = new LinkedHashMap<>();
+            for (int i = 0; i < 50; i++) {
+                String id = "S" + random.nextInt(1000);
+                substations.put(id, createSubstation(id, random.nextInt(10) == 0 ? null : "N" + random.nextInt(30)));
+            }
+            SortedSubstations previous = SortedSubstations.build(new ArrayList<>(substations.values()));
+
+            // about a tenth of substations removed, a tenth renamed, others unchanged but new instances
+            List<IdAndName> newSubstations = new ArrayList<>();
+            for (IdAndName substation : substations.values()) {
+                int action = random.nextInt(10);
+                if (action == 1) {
+                    newSubstations.add(createSubstation(substation.getId(), "R" + random.nextInt(30)));
+                } else if (action != 0) {
+                    newSubstations.add(createSubstation(substation.getId(), substation.getName()));
+                }
+            }
+            for (int i = 0; i < 5; i++) {
+                newSubstations.add(createSubstation("A" + iteration + "_" + i, "N" + random.nextInt(30)));
+            }
+            Collections.shuffle(newSubstations, random);
+
+            SortedSubstations.Change change = previous.update(newSubstations);
+            assertReplayed(change, false);
+            assertReplayed(change, true);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testItemsUpdateOfOtherSubstations() {
+        SortedSubstations previous = SortedSubstations.build(Collections.singletonList(createSubstation("S1", "a")));
+        SortedSubstations other = SortedSubstations.build(Collections.singletonList(createSubstation("S1", "a")));
+        new SubstationItems(other, false).update(previous.update(Collections.emptyList()));
+    }
+}
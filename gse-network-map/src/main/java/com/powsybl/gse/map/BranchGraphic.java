@@ -10,28 +10,104 @@ import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Rectangle;
 import com.powsybl.commons.PowsyblException;
 
-import java.util.List;
 import java.util.Objects;
 
 /**
+ * A poly line of pylons. Pylons are only stored in packed arrays of their zoom independent Web Mercator projection, so
+ * that drawing does not need any trigonometry, longitude and latitude are computed back when needed.
+ *
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
  */
 public class BranchGraphic implements IndexableGraphic {
 
-    private final List<PylonGraphic> pylons;
+    private final double[] xs;
+
+    private final double[] ys;
 
     private final LineGraphic line;
 
-    public BranchGraphic(List<PylonGraphic> pylons, LineGraphic line) {
-        this.pylons = Objects.requireNonNull(pylons);
-        if (pylons.isEmpty()) {
+    private final Rectangle boundingBox;
+
+    public BranchGraphic(double[] lons, double[] lats, LineGraphic line) {
+        this(line, projectLons(lons), projectLats(lats));
+    }
+
+    private BranchGraphic(LineGraphic line, double[] xs, double[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+        if (xs.length != ys.length) {
+            throw new PowsyblException("Longitude and latitude count mismatch");
+        }
+        if (xs.length == 0) {
             throw new PowsyblException("Empty poly segment");
         }
         this.line = Objects.requireNonNull(line);
+        boundingBox = computeBoundingBox();
     }
 
-    public List<PylonGraphic> getPylons() {
-        return pylons;
+    /**
+     * Create a branch from already projected pylons.
+     */
+    static BranchGraphic createProjected(double[] xs, double[] ys, LineGraphic line) {
+        return new BranchGraphic(line, Objects.requireNonNull(xs), Objects.requireNonNull(ys));
+    }
+
+    private static double[] projectLons(double[] lons) {
+        double[] xs = new double[Objects.requireNonNull(lons).length];
+        for (int i = 0; i < lons.length; i++) {
+            xs[i] = WebMercator.projectLon(lons[i]);
+        }
+        return xs;
+    }
+
+    private static double[] projectLats(double[] lats) {
+        double[] ys = new double[Objects.requireNonNull(lats).length];
+        for (int i = 0; i < lats.length; i++) {
+            ys[i] = WebMercator.projectLat(lats[i]);
+        }
+        return ys;
+    }
+
+    private Rectangle computeBoundingBox() {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        // y grows southward
+        return Geometries.rectangleGeographic(WebMercator.unprojectX(minX), WebMercator.unprojectY(maxY),
+                                              WebMercator.unprojectX(maxX), WebMercator.unprojectY(minY));
+    }
+
+    public int getPylonCount() {
+        return xs.length;
+    }
+
+    public double getLon(int pylon) {
+        return WebMercator.unprojectX(xs[pylon]);
+    }
+
+    public double getLat(int pylon) {
+        return WebMercator.unprojectY(ys[pylon]);
+    }
+
+    /**
+     * Normalized Web Mercator x of a pylon.
+     */
+    public double getX(int pylon) {
+        return xs[pylon];
+    }
+
+    /**
+     * Normalized Web Mercator y of a pylon.
+     */
+    public double getY(int pylon) {
+        return ys[pylon];
     }
 
     public LineGraphic getLine() {
@@ -40,17 +116,6 @@ public class BranchGraphic implements IndexableGraphic {
 
     @Override
     public Rectangle getBoundingBox() {
-        double minLon = Double.MAX_VALUE;
-        double minLat = Double.MAX_VALUE;
-        double maxLon = Double.MIN_VALUE;
-        double maxLat = Double.MIN_VALUE;
-        for (PylonGraphic pylon : pylons) {
-            Coordinate c = pylon.getCoordinate();
-            minLon = Math.min(minLon, c.getLon());
-            minLat = Math.min(minLat, c.getLat());
-            maxLon = Math.max(maxLon, c.getLon());
-            maxLat = Math.max(maxLat, c.getLat());
-        }
-        return Geometries.rectangleGeographic(minLon, minLat, maxLon, maxLat);
+        return boundingBox;
     }
 }
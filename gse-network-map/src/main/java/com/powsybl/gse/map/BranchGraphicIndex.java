@@ -6,14 +6,23 @@
  */
 package com.powsybl.gse.map;
 
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.RTree;
 import com.github.davidmoten.rtree.geometry.Geometry;
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
-import java.util.Objects;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
@@ -24,19 +33,28 @@ public final class BranchGraphicIndex {
 
     private final RTree<BranchGraphic, Geometry> tree;
 
+    private final AtomicBoolean simplificationPyramidsRequested = new AtomicBoolean(false);
+
+    private volatile Map<BranchGraphic, SimplificationPyramid> simplificationPyramids;
+
     private BranchGraphicIndex(RTree<BranchGraphic, Geometry> tree) {
         this.tree = Objects.requireNonNull(tree);
     }
 
+    private static RTree<BranchGraphic, Geometry> createTree(List<Entry<BranchGraphic, Geometry>> entries) {
+        // bulk loading (sort-tile-recursive packing) instead of one insertion per branch
+        return RTree.maxChildren(6).create(entries);
+    }
+
     public static BranchGraphicIndex build(Collection<BranchGraphic> segmentGroups) {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        RTree<BranchGraphic, Geometry> tree = RTree.star().maxChildren(6).create();
-
+        List<Entry<BranchGraphic, Geometry>> entries = new ArrayList<>(segmentGroups.size());
         for (BranchGraphic segmentGroup : segmentGroups) {
-            tree = tree.add(segmentGroup, segmentGroup.getBoundingBox());
+            entries.add(Entries.entry(segmentGroup, segmentGroup.getBoundingBox()));
         }
+        RTree<BranchGraphic, Geometry> tree = createTree(entries);
 
         LOGGER.info("Line branches R-tree built in {} ms", stopWatch.getTime());
 
@@ -46,4 +64,115 @@ public final class BranchGraphicIndex {
     public RTree<BranchGraphic, Geometry> getTree() {
         return tree;
     }
+
+    private void buildSimplificationPyramids(int maxLevel) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        List<BranchGraphic> branches = new ArrayList<>(tree.size());
+        for (Entry<BranchGraphic, Geometry> e : tree.entries().toBlocking().toIterable()) {
+            branches.add(e.value());
+        }
+        Map<BranchGraphic, SimplificationPyramid> pyramids = branches.parallelStream()
+                .collect(Collectors.toMap(Function.identity(), branch -> SimplificationPyramid.build(branch, maxLevel)));
+        simplificationPyramids = pyramids;
+
+        LOGGER.info("Simplification pyramids of {} line branches built in {} ms", pyramids.size(), stopWatch.getTime());
+    }
+
+    /**
+     * Get simplification pyramids of indexed branches. They are built in background on first call, {@code null} is
+     * returned until they are available.
+     */
+    Map<BranchGraphic, SimplificationPyramid> getSimplificationPyramids(int maxLevel) {
+        Map<BranchGraphic, SimplificationPyramid> pyramids = simplificationPyramids;
+        if (pyramids == null && simplificationPyramidsRequested.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> buildSimplificationPyramids(maxLevel))
+                    .exceptionally(e -> {
+                        LOGGER.error(e.toString(), e);
+                        return null;
+                    });
+        }
+        return pyramids;
+    }
+
+    // pylons are cached projected, so that reading does not need any trigonometry
+
+    private static void writeBranch(DataOutputStream os, BranchGraphic branch) throws IOException {
+        os.writeInt(branch.getPylonCount());
+        for (int i = 0; i < branch.getPylonCount(); i++) {
+            os.writeDouble(branch.getX(i));
+            os.writeDouble(branch.getY(i));
+        }
+    }
+
+    private static BranchGraphic readBranch(ByteBuffer buffer, LineGraphic line) {
+        int pylonCount = buffer.getInt();
+        double[] xs = new double[pylonCount];
+        double[] ys = new double[pylonCount];
+        for (int i = 0; i < pylonCount; i++) {
+            xs[i] = buffer.getDouble();
+            ys[i] = buffer.getDouble();
+        }
+        return BranchGraphic.createProjected(xs, ys, line);
+    }
+
+    /**
+     * Write branches of lines, without requiring them to be indexed.
+     */
+    static void write(Path cacheFile, List<Path> sources, Collection<LineGraphic> lines) {
+        RteOpenDataCache.write(cacheFile, RteOpenDataCache.BRANCH_INDEX, sources, os -> {
+            RteOpenDataCache.writeIds(os, lines.stream().map(LineGraphic::getId).toArray(String[]::new));
+            for (LineGraphic line : lines) {
+                os.writeInt(line.getBranches().size());
+                for (BranchGraphic branch : line.getBranches()) {
+                    writeBranch(os, branch);
+                }
+            }
+        });
+    }
+
+    /**
+     * Read branches written by {@link #write(Path, List, Collection)} and attach them to their line. Branches are
+     * indexed with branches of other providers when data is published.
+     *
+     * @return {@code false} if cache is missing or out of date
+     */
+    static boolean read(Path cacheFile, List<Path> sources, Map<String, LineGraphic> lines) {
+        Objects.requireNonNull(lines);
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        Integer branchCount = RteOpenDataCache.read(cacheFile, RteOpenDataCache.BRANCH_INDEX, sources, buffer -> {
+            Map<LineGraphic, List<BranchGraphic>> branchesByLine = new HashMap<>();
+            int count = 0;
+            for (String id : RteOpenDataCache.readIds(buffer)) {
+                LineGraphic line = lines.get(id);
+                if (line == null) {
+                    throw new IllegalArgumentException("Unknown line " + id);
+                }
+                int lineBranchCount = buffer.getInt();
+                List<BranchGraphic> branches = new ArrayList<>(lineBranchCount);
+                for (int i = 0; i < lineBranchCount; i++) {
+                    branches.add(readBranch(buffer, line));
+                }
+                branchesByLine.put(line, branches);
+                count += lineBranchCount;
+            }
+            // only attach branches once the whole cache has been successfully read
+            branchesByLine.forEach((line, branches) -> {
+                line.getBranches().clear();
+                line.getBranches().addAll(branches);
+            });
+            return count;
+        });
+        if (branchCount == null) {
+            return false;
+        }
+
+        LOGGER.info("{} line branches loaded in {} ms", branchCount, stopWatch.getTime());
+
+        return true;
+    }
 }
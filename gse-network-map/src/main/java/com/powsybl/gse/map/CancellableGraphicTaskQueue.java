@@ -7,66 +7,193 @@
 package com.powsybl.gse.map;
 
 import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 /**
+ * Queue of graphic tasks run in background by a limited number of workers, so that independent tasks (like rendering
+ * of each draw order) are processed in parallel.
+ * <p>
+ * The queue has a frame generation incremented by each reset. Tasks are stamped with the generation at which they
+ * are added: a reset drops tasks not yet started and tasks already running see themselves cancelled, which they check
+ * cooperatively inside their drawing loops. Actions to run on the JavaFX application thread are batched, so that
+ * results of back to back tasks are handled in one pulse, and dropped if stale.
+ *
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
  */
 public class CancellableGraphicTaskQueue {
 
-    private final Deque<Runnable> tasks = new ArrayDeque<>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(CancellableGraphicTaskQueue.class);
+
+    @FunctionalInterface
+    public interface Task {
+
+        /**
+         * @param cancelled to check regularly, the task should stop as soon as it returns {@code true}
+         */
+        void run(BooleanSupplier cancelled);
+    }
+
+    private static final class StampedTask {
+
+        private final Task task;
+
+        private final long generation;
+
+        private StampedTask(Task task, long generation) {
+            this.task = task;
+            this.generation = generation;
+        }
+    }
+
+    private final Deque<StampedTask> tasks = new ArrayDeque<>();
 
     private final Lock lock = new ReentrantLock();
 
     private final ExecutorService executor;
 
+    private final int parallelism;
+
+    private int workerCount = 0;
+
+    private final AtomicLong generation = new AtomicLong(0);
+
+    // actions waiting for next JavaFX pulse, with their generation
+    private final Map<Runnable, Long> fxActions = new LinkedHashMap<>();
+
+    private boolean fxPulseRequested = false;
+
     public CancellableGraphicTaskQueue(ExecutorService executor) {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    public CancellableGraphicTaskQueue(ExecutorService executor, int parallelism) {
         this.executor = Objects.requireNonNull(executor);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism);
+        }
+        this.parallelism = parallelism;
     }
 
-    public void start() {
-        executor.execute(() -> {
-            Runnable[] next = new Runnable[1];
+    private void runTasks() {
+        boolean idle = false;
+        try {
+            while (!idle) {
+                StampedTask stampedTask;
+                lock.lock();
+                try {
+                    idle = tasks.isEmpty();
+                    stampedTask = idle ? null : tasks.removeFirst();
+                } finally {
+                    lock.unlock();
+                }
+                if (stampedTask != null) {
+                    try {
+                        stampedTask.task.run(() -> isStale(stampedTask.generation));
+                    } catch (Exception e) {
+                        LOGGER.error(e.toString(), e);
+                    }
+                }
+            }
+        } finally {
+            // also on errors, otherwise no worker would be started anymore once all have died
             lock.lock();
             try {
-                if (!tasks.isEmpty()) {
-                    next[0] = tasks.removeFirst();
-                }
+                workerCount--;
             } finally {
                 lock.unlock();
             }
-            if (next[0] != null) {
-                Platform.runLater(() -> {
-                    next[0].run();
-                    start();
-                });
+        }
+    }
+
+    public void addTask(Task task) {
+        Objects.requireNonNull(task);
+        lock.lock();
+        try {
+            tasks.addLast(new StampedTask(task, generation.get()));
+            // a worker keeps on running tasks until the queue is empty, so start one only if all are busy
+            if (workerCount < Math.min(parallelism, tasks.size())) {
+                workerCount++;
+                executor.execute(this::runTasks);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runFxActions() {
+        Map<Runnable, Long> actions;
+        lock.lock();
+        try {
+            actions = new LinkedHashMap<>(fxActions);
+            fxActions.clear();
+            fxPulseRequested = false;
+        } finally {
+            lock.unlock();
+        }
+        actions.forEach((action, actionGeneration) -> {
+            if (!isStale(actionGeneration)) {
+                action.run();
             }
         });
     }
 
-    public void addTask(Runnable task) {
-        Objects.requireNonNull(task);
+    /**
+     * Run an action on the JavaFX application thread, unless the generation is stale by then. Actions posted until
+     * next pulse are run together, and the same action posted several times is only run once.
+     */
+    public void runLater(long actionGeneration, Runnable action) {
+        Objects.requireNonNull(action);
         lock.lock();
         try {
-            boolean empty = tasks.isEmpty();
-            tasks.addLast(task);
-            if (empty) {
-                start();
+            fxActions.put(action, actionGeneration);
+            if (!fxPulseRequested) {
+                fxPulseRequested = true;
+                Platform.runLater(this::runFxActions);
             }
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Current frame generation, incremented by each reset.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Number of tasks waiting for a worker.
+     */
+    public int getTaskCount() {
+        lock.lock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isStale(long otherGeneration) {
+        return generation.get() != otherGeneration;
+    }
+
     public void reset() {
         lock.lock();
         try {
+            generation.incrementAndGet();
             tasks.clear();
         } finally {
             lock.unlock();
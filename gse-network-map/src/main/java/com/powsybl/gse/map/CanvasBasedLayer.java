@@ -42,15 +42,10 @@ public class CanvasBasedLayer extends MapLayer {
     }
 
     protected Coordinate getMapCoordinate(double zoom, Point2D point) {
-        double mex = point.getX() - baseMap.getTranslateX();
-        double mey = point.getY() - baseMap.getTranslateY();
-        double id = mex / 256;
-        double jd = mey / 256;
-        double n = Math.pow(2, zoom);
-        double lon = id / n * 360.0 - 180.0;
-        double latRad = Math.atan(Math.sinh(Math.PI * (1 - 2 * jd / n)));
-        double lat = latRad * 180.0 / Math.PI;
-        return new Coordinate(lon, lat);
+        double scale = WebMercator.getScale(zoom);
+        double x = (point.getX() - baseMap.getTranslateX()) / scale;
+        double y = (point.getY() - baseMap.getTranslateY()) / scale;
+        return new Coordinate(WebMercator.unprojectX(x), WebMercator.unprojectY(y));
     }
 
     protected Rectangle getMapBounds() {
@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Row by row CSV tokenizer working directly on an UTF-8 byte buffer (typically a memory mapped file).
+ * Fields are only located (start and end offsets), no string is created unless {@link #getString(int)} is called.
+ * Like {@code String.split}, quotes are not interpreted.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class CsvTokenizer {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final ByteBuffer buffer;
+
+    private final byte separator;
+
+    private final int limit;
+
+    private int position;
+
+    private int[] fieldStarts = new int[16];
+
+    private int[] fieldEnds = new int[16];
+
+    private int fieldCount = 0;
+
+    private byte[] scratch = new byte[64];
+
+    CsvTokenizer(ByteBuffer buffer, char separator) {
+        this.buffer = Objects.requireNonNull(buffer);
+        this.separator = (byte) separator;
+        position = buffer.position();
+        limit = buffer.limit();
+    }
+
+    /**
+     * Split the remaining bytes of a buffer in about {@code chunkCount} slices, each one ending at a row boundary.
+     */
+    static List<ByteBuffer> split(ByteBuffer buffer, int chunkCount) {
+        List<ByteBuffer> chunks = new ArrayList<>(chunkCount);
+        int limit = buffer.limit();
+        int chunkSize = Math.max(1, (limit - buffer.position()) / Math.max(1, chunkCount));
+        int start = buffer.position();
+        while (start < limit) {
+            int end = Math.min(limit, start + chunkSize);
+            while (end < limit && buffer.get(end - 1) != '\n') {
+                end++;
+            }
+            ByteBuffer chunk = buffer.duplicate();
+            chunk.limit(end);
+            chunk.position(start);
+            chunks.add(chunk.slice());
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return a buffer on the rows that have not been read yet
+     */
+    ByteBuffer remaining() {
+        ByteBuffer remaining = buffer.duplicate();
+        remaining.limit(limit);
+        remaining.position(position);
+        return remaining.slice();
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * Move to next non empty row.
+     *
+     * @return false if there is no more row
+     */
+    boolean nextRow() {
+        while (position < limit) {
+            fieldCount = 0;
+            int start = position;
+            int i = position;
+            while (i < limit) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    break;
+                }
+                if (b == separator) {
+                    addField(start, i);
+                    start = i + 1;
+                }
+                i++;
+            }
+            int end = i > start && buffer.get(i - 1) == '\r' ? i - 1 : i;
+            boolean empty = fieldCount == 0 && end == start;
+            addField(start, end);
+            position = i + 1;
+            if (!empty) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    private void checkField(int field) {
+        if (field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " not found (" + fieldCount + " fields)");
+        }
+    }
+
+    int getFieldStart(int field) {
+        checkField(field);
+        return fieldStarts[field];
+    }
+
+    int getFieldEnd(int field) {
+        checkField(field);
+        return fieldEnds[field];
+    }
+
+    boolean isEmpty(int field) {
+        checkField(field);
+        return fieldStarts[field] == fieldEnds[field];
+    }
+
+    /**
+     * Compare a field to bytes at {@code [start, end)} of the same buffer.
+     */
+    boolean fieldEquals(int field, int start, int end) {
+        checkField(field);
+        int fieldStart = fieldStarts[field];
+        int length = fieldEnds[field] - fieldStart;
+        if (length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(fieldStart + i) != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean fieldEquals(int field, byte[] bytes) {
+        checkField(field);
+        int fieldStart = fieldStarts[field];
+        if (fieldEnds[field] - fieldStart != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(fieldStart + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String getString(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse a field as a double. Plain decimal numbers whose digits fit in 53 bits are parsed without
+     * allocation and give the same result as {@link Double#parseDouble(String)}, which is used for all other cases.
+     */
+    double getDouble(int field) {
+        checkField(field);
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean dot = false;
+        boolean digit = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    return Double.parseDouble(getString(field));
+                }
+                if (dot) {
+                    fractionDigits++;
+                }
+                digit = true;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                // exponent, spaces...
+                return Double.parseDouble(getString(field));
+            }
+        }
+        if (!digit || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(field));
+        }
+        // both operands are exact and IEEE 754 division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedMap;
+
+/**
+ * Immutable snapshot of geographical data loaded so far and its indexes, published to the map by
+ * {@link GeoDataLoader}.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class GeoData {
+
+    private final List<LineGraphic> lines;
+
+    private final SubstationGraphicIndex substationIndex;
+
+    private final SortedMap<Integer, BranchGraphicIndex> branchesIndexes;
+
+    private final boolean complete;
+
+    GeoData(List<LineGraphic> lines, SubstationGraphicIndex substationIndex,
+            SortedMap<Integer, BranchGraphicIndex> branchesIndexes, boolean complete) {
+        this.lines = Objects.requireNonNull(lines);
+        this.substationIndex = Objects.requireNonNull(substationIndex);
+        this.branchesIndexes = Objects.requireNonNull(branchesIndexes);
+        this.complete = complete;
+    }
+
+    List<LineGraphic> getLines() {
+        return lines;
+    }
+
+    SubstationGraphicIndex getSubstationIndex() {
+        return substationIndex;
+    }
+
+    SortedMap<Integer, BranchGraphicIndex> getBranchesIndexes() {
+        return branchesIndexes;
+    }
+
+    /**
+     * @return {@code false} if data is partial and a new snapshot will follow
+     */
+    boolean isComplete() {
+        return complete;
+    }
+}
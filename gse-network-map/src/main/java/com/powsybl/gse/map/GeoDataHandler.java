@@ -0,0 +1,21 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.util.Collection;
+
+/**
+ * Receiver of geographical data batches emitted by a {@link GeoDataProvider}.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public interface GeoDataHandler {
+
+    void onSubstations(Collection<SubstationGraphic> substations);
+
+    void onLines(Collection<LineGraphic> lines);
+}
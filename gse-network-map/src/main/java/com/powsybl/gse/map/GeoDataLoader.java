@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Load and merge data of geographical data providers, and publish snapshots with their indexes.
+ * <p>
+ * Data emitted by streaming providers is published each time the number of features has grown by the number already
+ * published, so that partial data is displayed quickly while the total indexing cost stays proportional to the final
+ * number of features. Substations of providers reading files are published as soon as parsed, and their lines once
+ * all parsed, with line branches cached next to these files.
+ * <p>
+ * Each publication is staged, so that time to first useful frame does not depend on the size of the whole grid.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class GeoDataLoader implements GeoDataHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeoDataLoader.class);
+
+    private static final String BRANCH_INDEX_CACHE_FILE_SUFFIX = "-branch-index.bin";
+
+    // minimal number of new features before publishing partial data
+    private static final int MIN_PUBLISH_COUNT = 10000;
+
+    private final List<GeoDataProvider> providers;
+
+    private final Consumer<GeoData> publisher;
+
+    private final Map<String, SubstationGraphic> substations = new LinkedHashMap<>();
+
+    private final Map<String, LineGraphic> lines = new LinkedHashMap<>();
+
+    // lines whose branches have not been built yet
+    private final List<LineGraphic> newLines = new ArrayList<>();
+
+    private final Map<Integer, List<BranchGraphic>> branchesByDrawOrder = new TreeMap<>();
+
+    private int duplicateCount = 0;
+
+    private int publishedCount = 0;
+
+    private SubstationGraphicIndex substationIndex;
+
+    private SortedMap<Integer, BranchGraphicIndex> branchesIndexes = new TreeMap<>();
+
+    private boolean substationsChanged = true;
+
+    private final Set<Integer> changedDrawOrders = new HashSet<>();
+
+    /**
+     * @param publisher called from the loading thread with each new snapshot
+     */
+    GeoDataLoader(List<GeoDataProvider> providers, Consumer<GeoData> publisher) {
+        this.providers = Objects.requireNonNull(providers);
+        this.publisher = Objects.requireNonNull(publisher);
+    }
+
+    void load() {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        for (GeoDataProvider provider : providers) {
+            try {
+                if (provider.getSources().isEmpty()) {
+                    provider.load(this);
+                } else {
+                    loadCached(provider);
+                }
+            } catch (RuntimeException e) {
+                // data of other providers can still be displayed
+                LOGGER.error("Loading of geographical data provider " + provider.getName() + " failed", e);
+            }
+        }
+        publish(true);
+
+        LOGGER.info("{} substations and {} lines of {} geographical data providers loaded in {} ms ({} duplicates)",
+                substations.size(), lines.size(), providers.size(), stopWatch.getTime(), duplicateCount);
+    }
+
+    private void loadCached(GeoDataProvider provider) {
+        // substations are published as soon as parsed, lines once all parsed to look up cached branches
+        Map<String, LineGraphic> providerLines = new LinkedHashMap<>();
+        provider.load(new GeoDataHandler() {
+            @Override
+            public void onSubstations(Collection<SubstationGraphic> substations) {
+                synchronized (GeoDataLoader.this) {
+                    substations.forEach(GeoDataLoader.this::addSubstation);
+                }
+                publish(false);
+            }
+
+            @Override
+            public void onLines(Collection<LineGraphic> lines) {
+                lines.forEach(line -> providerLines.put(line.getId(), line));
+            }
+        });
+
+        List<Path> sources = provider.getSources();
+        Path cacheFile = sources.get(0).resolveSibling(provider.getName() + BRANCH_INDEX_CACHE_FILE_SUFFIX);
+        boolean cached = BranchGraphicIndex.read(cacheFile, sources, providerLines);
+        if (cached) {
+            providerLines.values().forEach(LineGraphic::releaseSegments);
+        }
+        synchronized (this) {
+            providerLines.values().forEach(line -> addLine(line, !cached));
+        }
+        publish(false);
+        if (!cached) {
+            BranchGraphicIndex.write(cacheFile, sources, providerLines.values());
+        }
+    }
+
+    /**
+     * Build branches of lines and split them per base voltage, as there is one layer per base voltage.
+     */
+    private static void updateBranches(Collection<LineGraphic> lines, Map<Integer, List<BranchGraphic>> branchesByDrawOrder) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        // lines are independent, let the fork join pool balance big and small ones
+        lines.parallelStream().forEach(LineGraphic::updateBranches);
+
+        int branchCount = 0;
+        for (LineGraphic line : lines) {
+            branchesByDrawOrder.computeIfAbsent(line.getDrawOrder(), k -> new ArrayList<>())
+                    .addAll(line.getBranches());
+            branchCount += line.getBranches().size();
+        }
+
+        LOGGER.info("{} branches of {} lines built in {} ms", branchCount, lines.size(), stopWatch.getTime());
+    }
+
+    private void addSubstation(SubstationGraphic substation) {
+        if (substations.putIfAbsent(substation.getId(), substation) == null) {
+            substationsChanged = true;
+        } else {
+            duplicateCount++;
+        }
+    }
+
+    private void addLine(LineGraphic line, boolean withoutBranches) {
+        if (lines.putIfAbsent(line.getId(), line) == null) {
+            if (withoutBranches) {
+                newLines.add(line);
+            } else {
+                branchesByDrawOrder.computeIfAbsent(line.getDrawOrder(), k -> new ArrayList<>())
+                        .addAll(line.getBranches());
+            }
+            changedDrawOrders.add(line.getDrawOrder());
+        } else {
+            duplicateCount++;
+        }
+    }
+
+    private void publishIfGrown() {
+        int count = substations.size() + lines.size();
+        if (count - publishedCount >= Math.max(MIN_PUBLISH_COUNT, publishedCount)) {
+            publish(false);
+        }
+    }
+
+    @Override
+    public synchronized void onSubstations(Collection<SubstationGraphic> substations) {
+        substations.forEach(this::addSubstation);
+        publishIfGrown();
+    }
+
+    @Override
+    public synchronized void onLines(Collection<LineGraphic> lines) {
+        lines.forEach(line -> addLine(line, true));
+        publishIfGrown();
+    }
+
+    /**
+     * Build indexes of data changed since previous snapshot and publish new snapshots: substations first, as they are
+     * cheap to index and give an overview of the grid, then lines one base voltage at a time, highest voltages first.
+     */
+    private synchronized void publish(boolean complete) {
+        if (substationsChanged) {
+            substationIndex = SubstationGraphicIndex.build(substations.values());
+            substationsChanged = false;
+            if (!changedDrawOrders.isEmpty()) {
+                publishSnapshot(false);
+            }
+        }
+
+        // highest voltages have the lowest draw orders
+        Map<Integer, List<LineGraphic>> newLinesByDrawOrder = newLines.stream()
+                .collect(Collectors.groupingBy(LineGraphic::getDrawOrder, TreeMap::new, Collectors.toList()));
+        newLines.clear();
+        Iterator<Integer> it = new TreeSet<>(changedDrawOrders).iterator();
+        changedDrawOrders.clear();
+        while (it.hasNext()) {
+            int drawOrder = it.next();
+            List<LineGraphic> drawOrderLines = newLinesByDrawOrder.get(drawOrder);
+            if (drawOrderLines != null) {
+                updateBranches(drawOrderLines, branchesByDrawOrder);
+                drawOrderLines.forEach(LineGraphic::releaseSegments);
+            }
+            // indexes of other base voltages are kept, with their simplification pyramids
+            SortedMap<Integer, BranchGraphicIndex> newIndexes = new TreeMap<>(branchesIndexes);
+            newIndexes.put(drawOrder, BranchGraphicIndex.build(branchesByDrawOrder.get(drawOrder)));
+            branchesIndexes = newIndexes;
+            if (it.hasNext()) {
+                publishSnapshot(false);
+            }
+        }
+
+        publishSnapshot(complete);
+    }
+
+    private void publishSnapshot(boolean complete) {
+        publishedCount = substations.size() + lines.size();
+        publisher.accept(new GeoData(Collections.unmodifiableList(new ArrayList<>(lines.values())), substationIndex,
+                                     Collections.unmodifiableSortedMap(branchesIndexes), complete));
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Source of substation and line geographical data displayed by the network map, plugged with
+ * {@link java.util.ServiceLoader}. Data of all available providers is merged, ordered by name, and the first provider
+ * emitting an id wins.
+ * <p>
+ * Streaming providers, for instance parsing big files or network extensions, should emit data in several batches: the
+ * map is refreshed with partial data while the rest is loading.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public interface GeoDataProvider {
+
+    /**
+     * Unique name, also used to name index cache files.
+     */
+    String getName();
+
+    /**
+     * @return {@code false} if data cannot be loaded, for instance because files have not been downloaded
+     */
+    boolean isAvailable();
+
+    /**
+     * Files data is read from. If not empty, data is loaded at once and line branches are cached in the directory of
+     * the first file until one of these files changes.
+     */
+    default List<Path> getSources() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Load data, called from a background thread. Each line has to be emitted once, with all its segments.
+     */
+    void load(GeoDataHandler handler);
+}
@@ -6,15 +6,11 @@
  */
 package com.powsybl.gse.map;
 
-import com.powsybl.iidm.network.Line;
 import javafx.scene.paint.Color;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
@@ -29,12 +25,10 @@ public class LineGraphic {
 
     private final Color color;
 
-    private final List<SegmentGraphic> segments = new ArrayList<>();
+    private List<SegmentGraphic> segments = new ArrayList<>();
 
     private final List<BranchGraphic> branches = new ArrayList<>();
 
-    private Line model;
-
     public LineGraphic(String id, int drawOrder, Color color) {
         this.id = Objects.requireNonNull(id);
         this.drawOrder = drawOrder;
@@ -57,80 +51,257 @@ public class LineGraphic {
         return segments;
     }
 
-    public Line getModel() {
-        return model;
+    public List<BranchGraphic> getBranches() {
+        return branches;
     }
 
-    public void setModel(Line model) {
-        this.model = model;
+    private static int compare(double[] lons, double[] lats, int i, int j) {
+        int c = Double.compare(lons[i], lons[j]);
+        return c != 0 ? c : Double.compare(lats[i], lats[j]);
     }
 
-    private static Stream<PylonGraphic> getNeighborsStream(PylonGraphic pylon, Set<PylonGraphic> remaining) {
-        return pylon.getNeighbors()
-                .stream()
-                .map(PylonGraphic.Neighbor::getPylon)
-                .filter(remaining::contains);
+    /**
+     * Stable bottom-up merge sort of point indexes by longitude then latitude.
+     */
+    private static int[] sortByCoordinate(double[] lons, double[] lats) {
+        int n = lons.length;
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+        }
+        int[] tmp = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    tmp[k++] = compare(lons, lats, sorted[j], sorted[i]) < 0 ? sorted[j++] : sorted[i++];
+                }
+                while (i < mid) {
+                    tmp[k++] = sorted[i++];
+                }
+                while (j < hi) {
+                    tmp[k++] = sorted[j++];
+                }
+            }
+            int[] swap = sorted;
+            sorted = tmp;
+            tmp = swap;
+        }
+        return sorted;
     }
 
-    private void startBranch(Set<PylonGraphic> remaining) {
-        if (remaining.isEmpty()) {
-            return;
+    /**
+     * Pylon graph of a line and its decomposition in branches.
+     * <p>
+     * Pylons are numbered in (longitude, latitude) order, so that the lowest remaining number is also the branch
+     * start chosen for deterministic behaviour, and neighbors are stored as compressed sparse rows in segment order.
+     * The walk is a depth first traversal using an explicit stack: a branch is extended with the first remaining
+     * neighbor of its last pylon until a dead end, then each other remaining neighbor of its pylons, from the last one
+     * to the first one, starts a new branch which is added before the branch it comes from.
+     */
+    private static final class PylonGraph {
+
+        private final double[] lons;
+        private final double[] lats;
+        private final int[] neighborOffsets;
+        private final int[] neighbors;
+
+        private final BitSet remaining;
+        private final int[] degrees; // number of remaining neighbors
+        private final BitSet starts; // remaining pylons that are not in the middle of a branch
+
+        // traversal stack
+        private final int[] framePylons;
+        private final int[] frameCursors;
+        private final int[][] framePendingBranches;
+        private int depth = 0;
+
+        // branch being extended and index of the stack frame waiting for it (-1 for the root branch)
+        private final int[] path;
+        private int pathLength = 0;
+        private int pathOwner = -1;
+        private int[] rootBranch;
+
+        private PylonGraph(List<SegmentGraphic> segments) {
+            int endCount = segments.size() * 2;
+            double[] endLons = new double[endCount];
+            double[] endLats = new double[endCount];
+            for (int s = 0; s < segments.size(); s++) {
+                SegmentGraphic segment = segments.get(s);
+                endLons[2 * s] = segment.getCoordinate1().getLon();
+                endLats[2 * s] = segment.getCoordinate1().getLat();
+                endLons[2 * s + 1] = segment.getCoordinate2().getLon();
+                endLats[2 * s + 1] = segment.getCoordinate2().getLat();
+            }
+
+            // merge identical segment ends into pylons
+            int[] sortedEnds = sortByCoordinate(endLons, endLats);
+            int[] endPylons = new int[endCount];
+            double[] pylonLons = new double[endCount];
+            double[] pylonLats = new double[endCount];
+            int pylonCount = 0;
+            for (int i = 0; i < endCount; i++) {
+                int e = sortedEnds[i];
+                if (i == 0 || compare(endLons, endLats, e, sortedEnds[i - 1]) != 0) {
+                    pylonLons[pylonCount] = endLons[e];
+                    pylonLats[pylonCount] = endLats[e];
+                    pylonCount++;
+                }
+                endPylons[e] = pylonCount - 1;
+            }
+            lons = Arrays.copyOf(pylonLons, pylonCount);
+            lats = Arrays.copyOf(pylonLats, pylonCount);
+
+            // link pylons
+            neighborOffsets = new int[pylonCount + 1];
+            for (int e = 0; e < endCount; e++) {
+                neighborOffsets[endPylons[e] + 1]++;
+            }
+            for (int p = 0; p < pylonCount; p++) {
+                neighborOffsets[p + 1] += neighborOffsets[p];
+            }
+            neighbors = new int[endCount];
+            int[] next = Arrays.copyOf(neighborOffsets, pylonCount);
+            for (int s = 0; s < segments.size(); s++) {
+                int pylon1 = endPylons[2 * s];
+                int pylon2 = endPylons[2 * s + 1];
+                neighbors[next[pylon1]++] = pylon2;
+                neighbors[next[pylon2]++] = pylon1;
+            }
+
+            remaining = new BitSet(pylonCount);
+            remaining.set(0, pylonCount);
+            degrees = new int[pylonCount];
+            starts = new BitSet(pylonCount);
+            for (int p = 0; p < pylonCount; p++) {
+                degrees[p] = neighborOffsets[p + 1] - neighborOffsets[p];
+                if (degrees[p] != 2) { // to start branch at a leaf or cross
+                    starts.set(p);
+                }
+            }
+
+            framePylons = new int[pylonCount];
+            frameCursors = new int[pylonCount];
+            framePendingBranches = new int[pylonCount][];
+            path = new int[pylonCount + 1];
+        }
+
+        private boolean hasRemaining() {
+            return !remaining.isEmpty();
         }
-        PylonGraphic pylon = remaining.stream()
-                .filter(p -> getNeighborsStream(p, remaining).count() != 2) // to start branch at a leaf or cross
-                .min(Comparator.comparingDouble((PylonGraphic p) -> p.getCoordinate().getLon()) // for deterministics behaviour
-                        .thenComparingDouble(p -> p.getCoordinate().getLat()))
-                .orElseGet(() -> remaining.iterator().next());
-        List<PylonGraphic> pylons = new ArrayList<>();
-        traverse(pylon, pylons, remaining);
-        if (!pylons.isEmpty()) {
-            branches.add(new BranchGraphic(pylons, this));
+
+        private int nextStart() {
+            int start = starts.nextSetBit(0);
+            return start != -1 ? start : remaining.nextSetBit(0); // a loop
         }
-    }
 
-    private void traverse(PylonGraphic pylon, List<PylonGraphic> pylons, Set<PylonGraphic> remaining) {
-        LOGGER.trace("Traverse pylon {}", pylon.getCoordinate());
-        pylons.add(pylon);
-        remaining.remove(pylon);
-        getNeighborsStream(pylon, remaining).findFirst().ifPresent(next -> traverse(next, pylons, remaining));
-        getNeighborsStream(pylon, remaining).forEach(next -> {
-            List<PylonGraphic> nextPylons = new ArrayList<>(1);
-            nextPylons.add(pylon);
-            traverse(next, nextPylons, remaining);
-            if (!nextPylons.isEmpty()) {
-                branches.add(new BranchGraphic(nextPylons, this));
+        private int nextRemainingNeighbor(int pylon, int from) {
+            for (int i = from; i < neighborOffsets[pylon + 1]; i++) {
+                if (remaining.get(neighbors[i])) {
+                    return i;
+                }
             }
-        });
-    }
+            return -1;
+        }
 
-    public List<BranchGraphic> getBranches() {
-        return branches;
+        private void remove(int pylon) {
+            remaining.clear(pylon);
+            starts.clear(pylon);
+            for (int i = neighborOffsets[pylon]; i < neighborOffsets[pylon + 1]; i++) {
+                int neighbor = neighbors[i];
+                if (remaining.get(neighbor)) {
+                    degrees[neighbor]--;
+                    starts.set(neighbor, degrees[neighbor] != 2);
+                }
+            }
+        }
+
+        private void enter(int pylon) {
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Traverse pylon ({}, {})", lons[pylon], lats[pylon]);
+            }
+            path[pathLength++] = pylon;
+            remove(pylon);
+            framePylons[depth] = pylon;
+            frameCursors[depth] = -1;
+            framePendingBranches[depth] = null;
+            depth++;
+        }
+
+        private void completePath() {
+            int[] branch = Arrays.copyOf(path, pathLength);
+            if (pathOwner == -1) {
+                rootBranch = branch;
+            } else {
+                framePendingBranches[pathOwner] = branch;
+            }
+        }
+
+        private void walk(int start, List<int[]> branches) {
+            pathLength = 0;
+            pathOwner = -1;
+            enter(start);
+            while (depth > 0) {
+                int f = depth - 1;
+                int pylon = framePylons[f];
+                if (frameCursors[f] == -1) {
+                    // first visit, extend current branch
+                    frameCursors[f] = neighborOffsets[pylon];
+                    int i = nextRemainingNeighbor(pylon, neighborOffsets[pylon]);
+                    if (i != -1) {
+                        enter(neighbors[i]);
+                        continue;
+                    }
+                    completePath();
+                }
+                if (framePendingBranches[f] != null) {
+                    branches.add(framePendingBranches[f]);
+                    framePendingBranches[f] = null;
+                }
+                int i = nextRemainingNeighbor(pylon, frameCursors[f]);
+                if (i != -1) {
+                    // start a new branch from this pylon
+                    frameCursors[f] = i + 1;
+                    pathLength = 0;
+                    pathOwner = f;
+                    path[pathLength++] = pylon;
+                    enter(neighbors[i]);
+                } else {
+                    depth--;
+                }
+            }
+            branches.add(rootBranch);
+        }
     }
 
     public void updateBranches() {
         branches.clear();
 
-        // index segment by position side 1 and 2
-        Set<Coordinate> positions = new HashSet<>(segments.size());
-        for (SegmentGraphic segment : segments) {
-            positions.add(segment.getCoordinate1());
-            positions.add(segment.getCoordinate2());
+        PylonGraph graph = new PylonGraph(segments);
+        List<int[]> pylonBranches = new ArrayList<>();
+        while (graph.hasRemaining()) {
+            graph.walk(graph.nextStart(), pylonBranches);
         }
 
-        // create pylons
-        Map<Coordinate, PylonGraphic> pylons = positions.stream().collect(Collectors.toMap(Function.identity(), PylonGraphic::new));
-
-        // links pylons
-        for (SegmentGraphic segment : segments) {
-            PylonGraphic pylon1 = pylons.get(segment.getCoordinate1());
-            PylonGraphic pylon2 = pylons.get(segment.getCoordinate2());
-            pylon1.getNeighbors().add(new PylonGraphic.Neighbor(pylon2, segment));
-            pylon2.getNeighbors().add(new PylonGraphic.Neighbor(pylon1, segment));
+        for (int[] pylonBranch : pylonBranches) {
+            double[] lons = new double[pylonBranch.length];
+            double[] lats = new double[pylonBranch.length];
+            for (int i = 0; i < pylonBranch.length; i++) {
+                lons[i] = graph.lons[pylonBranch[i]];
+                lats[i] = graph.lats[pylonBranch[i]];
+            }
+            branches.add(new BranchGraphic(lons, lats, this));
         }
+    }
 
-        Set<PylonGraphic> remaining = new HashSet<>(pylons.values());
-        while (!remaining.isEmpty()) {
-            startBranch(remaining);
-        }
+    /**
+     * Segments are only needed to build branches, release them once it is done.
+     */
+    public void releaseSegments() {
+        segments = new ArrayList<>();
     }
 }
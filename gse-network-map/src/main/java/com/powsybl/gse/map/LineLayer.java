@@ -7,155 +7,224 @@
 package com.powsybl.gse.map;
 
 import com.github.davidmoten.rtree.Entry;
-import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
 import com.gluonhq.maps.MapView;
-import com.goebl.simplify.PointExtractor;
-import com.goebl.simplify.Simplify;
-import javafx.geometry.Point2D;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.shape.ArcType;
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import rx.Observable;
-import rx.functions.Action1;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.SortedMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
  */
-public class LineLayer extends CanvasBasedLayer {
+public class LineLayer extends TiledLayer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LineLayer.class);
 
     private static final int PYLON_SHOW_ZOOM_THRESHOLD = 10;
 
-    private static final PointExtractor<Point2D> POINT_EXTRACTOR = new PointExtractor<Point2D>() {
-        @Override
-        public double getX(Point2D point2D) {
-            return point2D.getX();
-        }
-
-        @Override
-        public double getY(Point2D point2D) {
-            return point2D.getY();
-        }
-    };
+    private static final double PYLON_SIZE = 5;
 
-    private final Simplify<Point2D> simplify = new Simplify<>(new Point2D[0], POINT_EXTRACTOR);
+    private static final double HIT_DISTANCE = 5;
 
-    private final SortedMap<Integer, BranchGraphicIndex> branchesIndexes;
+    private static final int MAX_HIT_COUNT = 10;
 
-    private final CancellableGraphicTaskQueue taskQueue;
+    private volatile SortedMap<Integer, BranchGraphicIndex> branchesIndexes;
 
     private final NetworkMapConfig config;
 
-    public LineLayer(MapView mapView, SortedMap<Integer, BranchGraphicIndex> branchesIndexes,
-                     CancellableGraphicTaskQueue taskQueue, NetworkMapConfig config) {
-        super(mapView);
+    private volatile MapHitTester hitTester;
+
+    private final Consumer<List<MapHit>> hitHandler;
+
+    private final LineLoadingStyle loadingStyle = new LineLoadingStyle();
+
+    // read by rendering threads
+    private volatile boolean showLoading;
+
+    public LineLayer(MapView mapView, SortedMap<Integer, BranchGraphicIndex> branchesIndexes, TileCache tileCache,
+                     CancellableGraphicTaskQueue taskQueue, NetworkMapMetrics metrics, NetworkMapConfig config,
+                     MapHitTester hitTester, Consumer<List<MapHit>> hitHandler) {
+        super(mapView, "lines", tileCache, taskQueue, metrics);
         this.branchesIndexes = Objects.requireNonNull(branchesIndexes);
-        this.taskQueue = Objects.requireNonNull(taskQueue);
         this.config = Objects.requireNonNull(config);
+        this.hitTester = Objects.requireNonNull(hitTester);
+        this.hitHandler = Objects.requireNonNull(hitHandler);
+        showLoading = config.isShowLoading().get();
+        config.isShowLoading().addListener((observable, oldValue, newValue) -> {
+            showLoading = newValue;
+            invalidate();
+        });
     }
 
-    @Override
-    protected void onMapClick(Coordinate c) {
-        for (Map.Entry<Integer, BranchGraphicIndex> e : branchesIndexes.entrySet()) {
-            BranchGraphicIndex index = e.getValue();
-            Observable<Entry<BranchGraphic, Geometry>> search = index.getTree().search(Geometries.pointGeographic(c.getLon(), c.getLat()));
-            search.toBlocking().forEach(new Action1<Entry<BranchGraphic, Geometry>>() {
-                @Override
-                public void call(Entry<BranchGraphic, Geometry> entry) {
-                    LOGGER.trace(entry.value().getLine().getId());
-                }
-            });
-        }
+    /**
+     * Replace indexes, with more lines while geographical data is loading.
+     */
+    void setBranchesIndexes(SortedMap<Integer, BranchGraphicIndex> branchesIndexes, MapHitTester hitTester) {
+        Objects.requireNonNull(branchesIndexes);
+        Objects.requireNonNull(hitTester);
+        SortedMap<Integer, BranchGraphicIndex> oldIndexes = this.branchesIndexes;
+        this.branchesIndexes = branchesIndexes;
+        this.hitTester = hitTester;
+        // only repaint base voltages whose index changed
+        branchesIndexes.forEach((drawOrder, index) -> {
+            if (oldIndexes.get(drawOrder) != index) {
+                invalidate(drawOrder);
+            }
+        });
+    }
+
+    /**
+     * Compute again line loadings, called from a background thread after a network update.
+     *
+     * @return lines whose color changed
+     */
+    List<LineGraphic> updateLoadings(Collection<LineGraphic> lines, NetworkModelBinding binding) {
+        return loadingStyle.update(lines, binding);
     }
 
-    private void draw(GraphicsContext gc, int drawOrder, BranchGraphicIndex segmentIndex,
-                      double zoom, boolean showPylons) {
-        LOGGER.trace("Drawing lines at order {}", drawOrder);
+    /**
+     * Invalidate tiles crossed by lines whose color changed.
+     */
+    void invalidateLines(Collection<LineGraphic> lines) {
+        if (!showLoading) {
+            return; // colors by base voltage do not change
+        }
+        List<Rectangle> dirtyRegions = new ArrayList<>();
+        for (LineGraphic line : lines) {
+            for (BranchGraphic branch : line.getBranches()) {
+                dirtyRegions.add(branch.getBoundingBox());
+            }
+        }
+        invalidate(dirtyRegions);
+    }
 
+    @Override
+    protected void onMapClick(Coordinate c) {
+        // line layer is on top of substation one, so it handles clicks for both
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        int[] segmentCount = new int[1];
-        int[] drawnSegmentCount = new int[1];
+        List<MapHit> hits = hitTester.hitTest(c, baseMap.zoom().get(), HIT_DISTANCE, MAX_HIT_COUNT);
 
-        double pylonSize = 5;
+        LOGGER.debug("Hit test at {} done in {} us: {}", c, stopWatch.getNanoTime() / 1000, hits);
 
-        segmentIndex.getTree().search(getMapBounds()).toBlocking().forEach(e -> {
-            BranchGraphic branch = e.value();
-
-            gc.setStroke(branch.getLine().getColor());
-            gc.setFill(branch.getLine().getColor());
+        hitHandler.accept(hits);
+    }
 
-            Point2D[] points = new Point2D[branch.getPylons().size()];
-            int i = 0;
-            for (PylonGraphic pylon : branch.getPylons()) {
-                Coordinate c = pylon.getCoordinate();
-                Point2D point = baseMap.getMapPoint(c.getLat(), c.getLon());
-                points[i++] = point;
+    /**
+     * @return number of culled segments
+     */
+    static int drawBranch(PixelBuffer buffer, BranchGraphic branch, double scale, double translateX, double translateY,
+                          double lineWidth, boolean showPylons, BooleanSupplier cancelled) {
+        int culledSegmentCount = 0;
+        double prevX = 0;
+        double prevY = 0;
+        for (int i = 0; i < branch.getPylonCount() && !cancelled.getAsBoolean(); i++) {
+            double x = translateX + branch.getX(i) * scale;
+            double y = translateY + branch.getY(i) * scale;
+            if (i > 0 && !buffer.drawLine(prevX, prevY, x, y, lineWidth)) {
+                culledSegmentCount++;
             }
-
-            Point2D[] pointsToDraw;
-            if (zoom > PYLON_SHOW_ZOOM_THRESHOLD) {
-                pointsToDraw = points;
-            } else {
-                pointsToDraw = simplify.simplify(points, 1, true);
+            // draw pylon
+            if (showPylons) {
+                buffer.fillCircle(x, y, PYLON_SIZE / 2);
             }
+            prevX = x;
+            prevY = y;
+        }
+        return culledSegmentCount;
+    }
 
-            segmentCount[0] += points.length - 1;
-            drawnSegmentCount[0] += pointsToDraw.length - 1;
-
-            Point2D prev = null;
-            for (Point2D point : pointsToDraw) {
-                if (prev != null) {
-                    gc.strokeLine(prev.getX(), prev.getY(), point.getX(), point.getY());
-                }
-                // draw pylon
-                if (showPylons && zoom > PYLON_SHOW_ZOOM_THRESHOLD) {
-                    gc.fillArc(point.getX() - pylonSize / 2, point.getY() - pylonSize / 2, pylonSize, pylonSize, 0, 360, ArcType.ROUND);
-                }
-                prev = point;
+    /**
+     * @return number of culled segments
+     */
+    static int drawSimplifiedBranch(PixelBuffer buffer, BranchGraphic branch, int[] pylons, double scale,
+                                    double translateX, double translateY, double lineWidth,
+                                    BooleanSupplier cancelled) {
+        int culledSegmentCount = 0;
+        double prevX = translateX + branch.getX(pylons[0]) * scale;
+        double prevY = translateY + branch.getY(pylons[0]) * scale;
+        for (int i = 1; i < pylons.length && !cancelled.getAsBoolean(); i++) {
+            double x = translateX + branch.getX(pylons[i]) * scale;
+            double y = translateY + branch.getY(pylons[i]) * scale;
+            if (!buffer.drawLine(prevX, prevY, x, y, lineWidth)) {
+                culledSegmentCount++;
             }
-        });
-
-        stopWatch.stop();
-
-        double simplificationRate = 1;
-        if (drawnSegmentCount[0] != 0) {
-            simplificationRate = (double) drawnSegmentCount[0] / segmentCount[0];
+            prevX = x;
+            prevY = y;
         }
+        return culledSegmentCount;
+    }
+
+    @Override
+    protected Collection<Integer> getDrawOrders() {
+        return branchesIndexes.keySet();
+    }
 
-        LOGGER.info("{} line segments (order={}, simplification={}) drawn in {} ms at zoom {}",
-                segmentCount[0], drawOrder, simplificationRate, stopWatch.getTime(), baseMap.zoom().getValue());
+    @Override
+    protected boolean isShowPylons(int tileZoom) {
+        return tileZoom > PYLON_SHOW_ZOOM_THRESHOLD && config.isShowPylons().get();
     }
 
     @Override
-    protected void layoutLayer() {
-        super.layoutLayer();
+    protected void renderTile(PixelBuffer buffer, TileKey key, Rectangle bounds, double scale, double translateX,
+                              double translateY, BooleanSupplier cancelled) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        int segmentCount = 0;
+        int simplifiedSegmentCount = 0;
+        int culledSegmentCount = 0;
 
-        double zoom = baseMap.zoom().getValue();
-        boolean showPylons = config.isShowPylons().get();
+        int zoom = key.getZoom();
+        double lineWidth = zoom >= 9 ? 2 : 1;
 
-        GraphicsContext gc = canvas.getGraphicsContext2D();
-        gc.setLineWidth(zoom >= 9 ? 2 : 1);
+        // below pylon zoom threshold, use geometries simplified for the tile zoom level, or simplify on the fly
+        // until precomputed ones are available
+        BranchGraphicIndex index = branchesIndexes.get(key.getDrawOrder());
+        if (index == null) {
+            return; // draw order of previous indexes
+        }
+        Map<BranchGraphic, SimplificationPyramid> pyramids = zoom > PYLON_SHOW_ZOOM_THRESHOLD ? null
+                : index.getSimplificationPyramids(PYLON_SHOW_ZOOM_THRESHOLD);
 
-        Iterator<Map.Entry<Integer, BranchGraphicIndex>> it = branchesIndexes.entrySet().iterator();
-        if (it.hasNext()) {
-            Map.Entry<Integer, BranchGraphicIndex> e = it.next();
-            draw(gc, e.getKey(), e.getValue(), zoom, showPylons);
+        long queryStart = System.nanoTime();
+        List<BranchGraphic> branches = new ArrayList<>();
+        for (Entry<BranchGraphic, Geometry> e : index.getTree().search(bounds).toBlocking().toIterable()) {
+            branches.add(e.value());
         }
+        getMetrics().recordIndexQuery(getName(), System.nanoTime() - queryStart);
+
+        for (BranchGraphic branch : branches) {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
 
-        while (it.hasNext()) {
-            Map.Entry<Integer, BranchGraphicIndex> e = it.next();
-            taskQueue.addTask(() -> draw(gc, e.getKey(), e.getValue(), zoom, showPylons));
+            buffer.setColor(showLoading ? loadingStyle.getColor(branch.getLine()) : branch.getLine().getColor());
+
+            segmentCount += branch.getPylonCount() - 1;
+            if (zoom > PYLON_SHOW_ZOOM_THRESHOLD) {
+                culledSegmentCount += drawBranch(buffer, branch, scale, translateX, translateY, lineWidth, key.isShowPylons(), cancelled);
+            } else {
+                int[] pylons = pyramids != null ? pyramids.get(branch).getPylons(zoom) : SimplificationPyramid.simplify(branch, zoom);
+                simplifiedSegmentCount += branch.getPylonCount() - pylons.length;
+                culledSegmentCount += drawSimplifiedBranch(buffer, branch, pylons, scale, translateX, translateY, lineWidth, cancelled);
+            }
         }
+
+        getMetrics().recordSegments(segmentCount, simplifiedSegmentCount, culledSegmentCount);
+
+        LOGGER.trace("{} line segments ({} simplified, {} culled) rendered in {} ms for {}", segmentCount,
+                simplifiedSegmentCount, culledSegmentCount, stopWatch.getTime(), key);
     }
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.powsybl.iidm.network.CurrentLimits;
+import com.powsybl.iidm.network.Line;
+import com.powsybl.iidm.network.Terminal;
+import javafx.scene.paint.Color;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Line colors by loading, the highest current of both sides in percentage of the permanent limit. Loadings are
+ * bucketed, so that after a network update only lines whose bucket changed have to be repainted.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class LineLoadingStyle {
+
+    private static final double[] BUCKET_THRESHOLDS = {50, 80, 100};
+
+    // first color for unknown loading, then one color per bucket
+    private static final Color[] BUCKET_COLORS = {
+        Color.rgb(170, 170, 170),
+        Color.rgb(0, 170, 0),
+        Color.rgb(255, 190, 0),
+        Color.rgb(255, 100, 0),
+        Color.rgb(220, 0, 0)
+    };
+
+    private static final int UNKNOWN_BUCKET = 0;
+
+    private final Map<LineGraphic, Integer> buckets = new ConcurrentHashMap<>();
+
+    private static double getCurrent(Terminal terminal) {
+        double i = terminal.getI();
+        if (Double.isNaN(i)) {
+            // no voltage, estimate current from flows at nominal voltage
+            double p = terminal.getP();
+            double q = terminal.getQ();
+            i = Math.sqrt(p * p + q * q) * 1000 / (Math.sqrt(3) * terminal.getVoltageLevel().getNominalV());
+        }
+        return i;
+    }
+
+    private static double getLoading(Terminal terminal, CurrentLimits limits) {
+        if (limits == null || Double.isNaN(limits.getPermanentLimit()) || limits.getPermanentLimit() <= 0) {
+            return Double.NaN;
+        }
+        return getCurrent(terminal) / limits.getPermanentLimit() * 100;
+    }
+
+    /**
+     * @return loading in percent, or {@code NaN} if no flow or no limit
+     */
+    static double getLoading(Line line) {
+        double loading1 = getLoading(line.getTerminal1(), line.getCurrentLimits1());
+        double loading2 = getLoading(line.getTerminal2(), line.getCurrentLimits2());
+        if (Double.isNaN(loading1)) {
+            return loading2;
+        }
+        return Double.isNaN(loading2) ? loading1 : Math.max(loading1, loading2);
+    }
+
+    static int getBucket(double loading) {
+        if (Double.isNaN(loading)) {
+            return UNKNOWN_BUCKET;
+        }
+        int bucket = 0;
+        while (bucket < BUCKET_THRESHOLDS.length && loading >= BUCKET_THRESHOLDS[bucket]) {
+            bucket++;
+        }
+        return bucket + 1;
+    }
+
+    /**
+     * Compute again loading buckets of all lines, without touching graphic objects and indexes.
+     *
+     * @return lines whose bucket changed
+     */
+    List<LineGraphic> update(Collection<LineGraphic> lines, NetworkModelBinding binding) {
+        List<LineGraphic> changedLines = new ArrayList<>();
+        for (LineGraphic line : lines) {
+            Line model = binding.getLine(line);
+            int bucket = model != null ? getBucket(getLoading(model)) : UNKNOWN_BUCKET;
+            Integer oldBucket = buckets.put(line, bucket);
+            if (oldBucket == null ? bucket != UNKNOWN_BUCKET : oldBucket != bucket) {
+                changedLines.add(line);
+            }
+        }
+        return changedLines;
+    }
+
+    Color getColor(LineGraphic line) {
+        return BUCKET_COLORS[buckets.getOrDefault(line, UNKNOWN_BUCKET)];
+    }
+}
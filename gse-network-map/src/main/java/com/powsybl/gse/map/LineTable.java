@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.nio.DoubleBuffer;
+import java.util.*;
+
+/**
+ * Columnar line segment geographical data, either freshly parsed or memory mapped from the binary cache.
+ * Segments are grouped by line: segments of line {@code i} are in {@code [segmentOffsets[i], segmentOffsets[i + 1])}.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class LineTable {
+
+    static final class Builder {
+
+        private final Map<String, Integer> lineIndexes = new LinkedHashMap<>();
+        private byte[] baseVoltages = new byte[1024];
+        private int[] segmentLines = new int[1024];
+        private double[] coordinates = new double[4 * 1024];
+        private int segmentCount = 0;
+
+        Builder addSegment(String lineId, RteOpenData.BaseVoltage baseVoltage, double lon1, double lat1, double lon2, double lat2) {
+            Integer lineIndex = lineIndexes.get(lineId);
+            if (lineIndex == null) {
+                lineIndex = lineIndexes.size();
+                lineIndexes.put(lineId, lineIndex);
+                if (lineIndex == baseVoltages.length) {
+                    baseVoltages = Arrays.copyOf(baseVoltages, lineIndex * 2);
+                }
+                baseVoltages[lineIndex] = (byte) baseVoltage.ordinal();
+            }
+            if (segmentCount == segmentLines.length) {
+                segmentLines = Arrays.copyOf(segmentLines, segmentCount * 2);
+                coordinates = Arrays.copyOf(coordinates, segmentCount * 8);
+            }
+            segmentLines[segmentCount] = lineIndex;
+            coordinates[4 * segmentCount] = lon1;
+            coordinates[4 * segmentCount + 1] = lat1;
+            coordinates[4 * segmentCount + 2] = lon2;
+            coordinates[4 * segmentCount + 3] = lat2;
+            segmentCount++;
+            return this;
+        }
+
+        /**
+         * Append segments of another builder, after segments of this one.
+         */
+        Builder append(Builder other) {
+            String[] otherIds = other.lineIndexes.keySet().toArray(new String[other.lineIndexes.size()]);
+            for (int s = 0; s < other.segmentCount; s++) {
+                int l = other.segmentLines[s];
+                addSegment(otherIds[l], RteOpenData.BaseVoltage.values()[other.baseVoltages[l]],
+                           other.coordinates[4 * s], other.coordinates[4 * s + 1],
+                           other.coordinates[4 * s + 2], other.coordinates[4 * s + 3]);
+            }
+            return this;
+        }
+
+        LineTable build() {
+            int lineCount = lineIndexes.size();
+
+            // group segments by line keeping file order inside a line (counting sort)
+            int[] segmentOffsets = new int[lineCount + 1];
+            for (int s = 0; s < segmentCount; s++) {
+                segmentOffsets[segmentLines[s] + 1]++;
+            }
+            for (int l = 0; l < lineCount; l++) {
+                segmentOffsets[l + 1] += segmentOffsets[l];
+            }
+            int[] next = Arrays.copyOf(segmentOffsets, lineCount);
+            double[] lon1 = new double[segmentCount];
+            double[] lat1 = new double[segmentCount];
+            double[] lon2 = new double[segmentCount];
+            double[] lat2 = new double[segmentCount];
+            for (int s = 0; s < segmentCount; s++) {
+                int j = next[segmentLines[s]]++;
+                lon1[j] = coordinates[4 * s];
+                lat1[j] = coordinates[4 * s + 1];
+                lon2[j] = coordinates[4 * s + 2];
+                lat2[j] = coordinates[4 * s + 3];
+            }
+
+            return new LineTable(lineIndexes.keySet().toArray(new String[lineCount]), Arrays.copyOf(baseVoltages, lineCount),
+                                 segmentOffsets, DoubleBuffer.wrap(lon1), DoubleBuffer.wrap(lat1),
+                                 DoubleBuffer.wrap(lon2), DoubleBuffer.wrap(lat2));
+        }
+    }
+
+    private final String[] ids;
+
+    private final byte[] baseVoltages;
+
+    private final int[] segmentOffsets;
+
+    private final DoubleBuffer lons1;
+
+    private final DoubleBuffer lats1;
+
+    private final DoubleBuffer lons2;
+
+    private final DoubleBuffer lats2;
+
+    LineTable(String[] ids, byte[] baseVoltages, int[] segmentOffsets, DoubleBuffer lons1, DoubleBuffer lats1,
+              DoubleBuffer lons2, DoubleBuffer lats2) {
+        this.ids = Objects.requireNonNull(ids);
+        this.baseVoltages = Objects.requireNonNull(baseVoltages);
+        this.segmentOffsets = Objects.requireNonNull(segmentOffsets);
+        this.lons1 = Objects.requireNonNull(lons1);
+        this.lats1 = Objects.requireNonNull(lats1);
+        this.lons2 = Objects.requireNonNull(lons2);
+        this.lats2 = Objects.requireNonNull(lats2);
+        int segmentCount = segmentOffsets[ids.length];
+        if (baseVoltages.length != ids.length || segmentOffsets.length != ids.length + 1
+                || lons1.limit() != segmentCount || lats1.limit() != segmentCount
+                || lons2.limit() != segmentCount || lats2.limit() != segmentCount) {
+            throw new IllegalArgumentException("Inconsistent line columns size");
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int getSegmentCount() {
+        return segmentOffsets[ids.length];
+    }
+
+    String getId(int l) {
+        return ids[l];
+    }
+
+    RteOpenData.BaseVoltage getBaseVoltage(int l) {
+        return RteOpenData.BaseVoltage.values()[baseVoltages[l]];
+    }
+
+    int getFirstSegment(int l) {
+        return segmentOffsets[l];
+    }
+
+    int getLastSegment(int l) {
+        return segmentOffsets[l + 1];
+    }
+
+    double getLon1(int s) {
+        return lons1.get(s);
+    }
+
+    double getLat1(int s) {
+        return lats1.get(s);
+    }
+
+    double getLon2(int s) {
+        return lons2.get(s);
+    }
+
+    double getLat2(int s) {
+        return lats2.get(s);
+    }
+
+    Map<String, LineGraphic> toGraphics() {
+        Map<String, LineGraphic> lines = new HashMap<>(ids.length);
+        for (int l = 0; l < ids.length; l++) {
+            RteOpenData.BaseVoltage baseVoltage = getBaseVoltage(l);
+            LineGraphic line = new LineGraphic(ids[l], baseVoltage.getOrder(), baseVoltage.getColor());
+            for (int s = segmentOffsets[l]; s < segmentOffsets[l + 1]; s++) {
+                line.getSegments().add(new SegmentGraphic(new Coordinate(lons1.get(s), lats1.get(s)),
+                                                          new Coordinate(lons2.get(s), lats2.get(s)),
+                                                          line));
+            }
+            lines.put(ids[l], line);
+        }
+        return lines;
+    }
+}
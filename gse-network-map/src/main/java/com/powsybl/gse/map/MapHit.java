@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.powsybl.iidm.network.Identifiable;
+import com.powsybl.iidm.network.Line;
+import com.powsybl.iidm.network.Substation;
+
+import java.util.Objects;
+
+/**
+ * A substation or a line segment close to a point of the map.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public final class MapHit {
+
+    public enum Type {
+        SUBSTATION,
+        LINE
+    }
+
+    private final Type type;
+
+    private final String id;
+
+    private final Identifiable<?> model;
+
+    private final int segment;
+
+    private final double distance;
+
+    private MapHit(Type type, String id, Identifiable<?> model, int segment, double distance) {
+        this.type = Objects.requireNonNull(type);
+        this.id = Objects.requireNonNull(id);
+        this.model = model;
+        this.segment = segment;
+        this.distance = distance;
+    }
+
+    static MapHit substation(SubstationGraphic substation, Substation model, double distance) {
+        return new MapHit(Type.SUBSTATION, substation.getId(), model, -1, distance);
+    }
+
+    static MapHit line(LineGraphic line, Line model, int segment, double distance) {
+        return new MapHit(Type.LINE, line.getId(), model, segment, distance);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the substation or line model, or {@code null} if not found in the network or if the network is not
+     * loaded yet
+     */
+    public Identifiable<?> getModel() {
+        return model;
+    }
+
+    public Substation getSubstation() {
+        return type == Type.SUBSTATION ? (Substation) model : null;
+    }
+
+    public Line getLine() {
+        return type == Type.LINE ? (Line) model : null;
+    }
+
+    /**
+     * Index in its branch of the closest line segment, -1 for a substation.
+     */
+    public int getSegment() {
+        return segment;
+    }
+
+    /**
+     * Distance in pixels at the zoom level of the hit test.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + id + ", " + distance + ")";
+    }
+}
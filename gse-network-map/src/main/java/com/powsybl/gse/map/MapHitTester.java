@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Point;
+
+import java.util.*;
+
+/**
+ * Find substations and line segments close to a point of the map, ranked by their distance in pixels.
+ * <p>
+ * Candidates are all R-tree entries within the pixel distance converted to degrees. They are not ranked by the
+ * R-trees: degrees are not isotropic, and all long branches whose bounding box contains the point would be at a zero
+ * distance. So each candidate is checked against the true point to point or point to polyline distance, in projected
+ * coordinates.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public final class MapHitTester {
+
+    private final SubstationGraphicIndex substationIndex;
+
+    private final SortedMap<Integer, BranchGraphicIndex> branchesIndexes;
+
+    private final NetworkModelBinding binding;
+
+    MapHitTester(SubstationGraphicIndex substationIndex, SortedMap<Integer, BranchGraphicIndex> branchesIndexes,
+                 NetworkModelBinding binding) {
+        this.substationIndex = Objects.requireNonNull(substationIndex);
+        this.branchesIndexes = Objects.requireNonNull(branchesIndexes);
+        this.binding = Objects.requireNonNull(binding);
+    }
+
+    /**
+     * @return squared distance and closest segment of a branch
+     */
+    private static double[] getClosestSegment(BranchGraphic branch, double x, double y) {
+        double minSquareDistance = Double.MAX_VALUE;
+        int segment = -1;
+        for (int i = 1; i < branch.getPylonCount(); i++) {
+            double squareDistance = SimplificationPyramid.getSquareSegmentDistance(x, y, branch.getX(i - 1), branch.getY(i - 1),
+                                                                                   branch.getX(i), branch.getY(i));
+            if (squareDistance < minSquareDistance) {
+                minSquareDistance = squareDistance;
+                segment = i - 1;
+            }
+        }
+        return new double[] {minSquareDistance, segment};
+    }
+
+    /**
+     * @param c clicked point
+     * @param zoom current map zoom level
+     * @param maxDistance maximum distance in pixels
+     * @param maxCount maximum number of hits
+     * @return hits sorted by increasing distance
+     */
+    public List<MapHit> hitTest(Coordinate c, double zoom, double maxDistance, int maxCount) {
+        Objects.requireNonNull(c);
+        if (maxDistance < 0 || maxCount < 1) {
+            throw new IllegalArgumentException("Invalid hit test parameters " + maxDistance + ", " + maxCount);
+        }
+        double scale = WebMercator.getScale(zoom);
+        double x = WebMercator.projectLon(c.getLon());
+        double y = WebMercator.projectLat(c.getLat());
+
+        // a pixel covers more longitude than latitude degrees, so this bound is large enough in both directions, and
+        // the number of candidates is bounded by the pixel distance
+        double maxDegrees = maxDistance * 360 / scale;
+        Point point = Geometries.pointGeographic(c.getLon(), c.getLat());
+
+        List<MapHit> hits = new ArrayList<>();
+        for (Entry<SubstationGraphic, Geometry> e : substationIndex.getTree().search(point, maxDegrees).toBlocking().toIterable()) {
+            SubstationGraphic substation = e.value();
+            double dx = WebMercator.projectLon(substation.getPosition().getLon()) - x;
+            double dy = WebMercator.projectLat(substation.getPosition().getLat()) - y;
+            double distance = Math.sqrt(dx * dx + dy * dy) * scale;
+            if (distance <= maxDistance) {
+                hits.add(MapHit.substation(substation, binding.getSubstation(substation), distance));
+            }
+        }
+        // a line may have several branches close to the point, only keep the closest one
+        Map<LineGraphic, double[]> closestSegments = new HashMap<>();
+        for (BranchGraphicIndex index : branchesIndexes.values()) {
+            for (Entry<BranchGraphic, Geometry> e : index.getTree().search(point, maxDegrees).toBlocking().toIterable()) {
+                BranchGraphic branch = e.value();
+                double[] closestSegment = getClosestSegment(branch, x, y);
+                if (Math.sqrt(closestSegment[0]) * scale <= maxDistance) {
+                    closestSegments.merge(branch.getLine(), closestSegment, (s1, s2) -> s1[0] <= s2[0] ? s1 : s2);
+                }
+            }
+        }
+        // models are only looked up for hit lines
+        closestSegments.forEach((line, closestSegment) -> hits.add(MapHit.line(line, binding.getLine(line), (int) closestSegment[1],
+                                                                              Math.sqrt(closestSegment[0]) * scale)));
+
+        hits.sort(Comparator.comparingDouble(MapHit::getDistance));
+        return hits.size() > maxCount ? new ArrayList<>(hits.subList(0, maxCount)) : hits;
+    }
+}
@@ -8,34 +8,39 @@ package com.powsybl.gse.map;
 
 import com.gluonhq.maps.MapView;
 import com.powsybl.afs.ext.base.ProjectCase;
+import com.powsybl.afs.ext.base.ProjectCaseListener;
 import com.powsybl.gse.spi.GseContext;
 import com.powsybl.gse.spi.ProjectFileViewer;
 import com.powsybl.gse.util.Glyph;
-import com.powsybl.gse.util.GseUtil;
-import com.powsybl.iidm.network.Line;
-import com.powsybl.iidm.network.Network;
-import com.powsybl.iidm.network.Substation;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.geometry.Point2D;
+import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.ToolBar;
 import javafx.scene.input.ZoomEvent;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
+import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
  */
-public class NetworkMap extends StackPane implements ProjectFileViewer {
+public class NetworkMap extends StackPane implements ProjectFileViewer, ProjectCaseListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NetworkMap.class);
 
@@ -64,6 +69,16 @@ public class NetworkMap extends StackPane implements ProjectFileViewer {
 
     private final CheckBox showPylons = new CheckBox(RESOURCE_BUNDLE.getString("ShowPylons"));
 
+    private final CheckBox showMetrics = new CheckBox(RESOURCE_BUNDLE.getString("ShowMetrics"));
+
+    private final CheckBox showLoading = new CheckBox(RESOURCE_BUNDLE.getString("ShowLoading"));
+
+    private final Label metricsLabel = new Label();
+
+    private final Label hitLabel = new Label();
+
+    private final Timeline metricsRefresh;
+
     private final MapView2 view;
 
     private final BorderPane mainPane;
@@ -74,15 +89,54 @@ public class NetworkMap extends StackPane implements ProjectFileViewer {
 
     private final NetworkMapConfig config = new NetworkMapConfig();
 
+    private final TileCache tileCache = new TileCache();
+
+    private final NetworkMapMetrics metrics;
+
+    // following fields are only accessed from the JavaFX application thread
+
+    private NetworkModelBinding binding;
+
+    private Consumer<GeoData> geoDataConsumer;
+
+    private Collection<LineGraphic> lines;
+
+    private SubstationLayer substationLayer;
+
+    private LineLayer lineLayer;
+
     public NetworkMap(ProjectCase projectCase, GseContext context) {
         this.projectCase = Objects.requireNonNull(projectCase);
         this.context = Objects.requireNonNull(context);
         taskQueue = new CancellableGraphicTaskQueue(context.getExecutor());
+        metrics = new NetworkMapMetrics(taskQueue, tileCache);
+        metrics.register();
 
         view = new MapView2();
         mainPane = new BorderPane();
         getChildren().addAll(mainPane, new Group(progressIndicator));
-        mainPane.setCenter(view);
+        // stays visible on top of partial data while loading
+        progressIndicator.setMouseTransparent(true);
+
+        // metrics overlay on top left corner of the map
+        metricsLabel.setStyle("-fx-font-family: monospace; -fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+        metricsLabel.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        metricsLabel.setMouseTransparent(true);
+        metricsLabel.setVisible(false);
+        StackPane.setAlignment(metricsLabel, Pos.TOP_LEFT);
+
+        // closest substation or line of last click on bottom left corner
+        hitLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+        hitLabel.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        hitLabel.setMouseTransparent(true);
+        hitLabel.setVisible(false);
+        StackPane.setAlignment(hitLabel, Pos.BOTTOM_LEFT);
+
+        StackPane mapPane = new StackPane();
+        mapPane.getChildren().addAll(view, metricsLabel, hitLabel);
+        mainPane.setCenter(mapPane);
+        metricsRefresh = new Timeline(new KeyFrame(Duration.seconds(1), event -> metricsLabel.setText(metrics.format())));
+        metricsRefresh.setCycleCount(Animation.INDEFINITE);
 
         zoomInButton = new Button("", Glyph.createAwesomeFont('\uf00e').size("1.2em"));
         zoomInButton.getStyleClass().add("gse-toolbar-button");
@@ -92,11 +146,80 @@ public class NetworkMap extends StackPane implements ProjectFileViewer {
         zoomOutButton.getStyleClass().add("gse-toolbar-button");
         zoomOutButton.setOnAction(event -> fireZoomEvent(0));
 
-        toolBar = new ToolBar(zoomInButton, zoomOutButton, showPylons);
+        toolBar = new ToolBar(zoomInButton, zoomOutButton, showPylons, showLoading, showMetrics);
         mainPane.setTop(toolBar);
 
         showPylons.selectedProperty().bindBidirectional(config.isShowPylons());
         showPylons.selectedProperty().addListener((observable, oldValue, newValue) -> view.markDirty());
+        showMetrics.selectedProperty().bindBidirectional(config.isShowMetrics());
+        showMetrics.selectedProperty().addListener((observable, oldValue, newValue) -> showMetrics(newValue));
+        showLoading.selectedProperty().bindBidirectional(config.isShowLoading());
+        showLoading.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue) {
+                updateLoadings();
+            }
+            view.markDirty();
+        });
+
+        projectCase.addListener(this);
+    }
+
+    /**
+     * Compute again line loadings in background, and only repaint tiles crossed by lines whose color changed.
+     */
+    private void updateLoadings() {
+        if (lineLayer == null) {
+            return; // not yet displayed, loadings will be computed with layers
+        }
+        LineLayer layer = lineLayer;
+        Collection<LineGraphic> lineGraphics = lines;
+        NetworkModelBinding modelBinding = binding;
+        modelBinding.getNetwork().thenRunAsync(() -> {
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            List<LineGraphic> changedLines = layer.updateLoadings(lineGraphics, modelBinding);
+            LOGGER.info("Loading of {} lines updated in {} ms ({} changed)", lineGraphics.size(), stopWatch.getTime(),
+                    changedLines.size());
+            if (!changedLines.isEmpty()) {
+                Platform.runLater(() -> {
+                    layer.invalidateLines(changedLines);
+                    view.markDirty();
+                });
+            }
+        }, context.getExecutor());
+    }
+
+    @Override
+    public void networkUpdated() {
+        Platform.runLater(() -> {
+            if (binding != null) {
+                binding.reload().thenRun(() -> Platform.runLater(() -> {
+                    if (config.isShowLoading().get()) {
+                        updateLoadings();
+                    }
+                }));
+            }
+        });
+    }
+
+    private void showMetrics(boolean show) {
+        metricsLabel.setVisible(show);
+        if (show) {
+            metricsLabel.setText(metrics.format());
+            metricsRefresh.play();
+        } else {
+            metricsRefresh.stop();
+        }
+    }
+
+    private void showHits(List<MapHit> hits) {
+        if (hits.isEmpty()) {
+            hitLabel.setVisible(false);
+        } else {
+            MapHit hit = hits.get(0);
+            hitLabel.setText(hit.getModel() != null ? hit.getModel().getName() : hit.getId());
+            hitLabel.setVisible(true);
+        }
     }
 
     private void fireZoomEvent(double zoom) {
@@ -120,80 +243,52 @@ public class NetworkMap extends StackPane implements ProjectFileViewer {
         return this;
     }
 
-    private void mapModelToGraphic(Map<String, SubstationGraphic> substations, Map<String, LineGraphic> lines) {
-        int mappedSubstations = 0;
-        Network network = projectCase.getNetwork();
-        for (Substation substation : network.getSubstations()) {
-            SubstationGraphic graphic = substations.get(substation.getId());
-            if (graphic != null) {
-                graphic.setModel(substation);
-                mappedSubstations++;
-            }
-        }
-        LOGGER.info("{}/{} substations mapped to graphic object", mappedSubstations, network.getSubstationCount());
-
-        int mappedLines = 0;
-        for (Line line : network.getLines()) {
-            LineGraphic graphic = lines.get(line.getId());
-            if (graphic != null) {
-                graphic.setModel(line);
-                mappedLines++;
-            }
-        }
-        LOGGER.info("{}/{} lines mapped to graphic object", mappedLines, network.getLineCount());
-    }
-
     @Override
     public void view() {
         view.setZoom(6);
         view.setCenter(47, 3);
         progressIndicator.setVisible(true);
         mainPane.setDisable(true);
-        GseUtil.execute(context.getExecutor(), () -> {
-            // load french data from CSV
-            Map<String, SubstationGraphic> substations = RteOpenData.parseSubstations();
-            Map<String, LineGraphic> lines = RteOpenData.parseLines();
-            for (LineGraphic line : lines.values()) {
-                line.updateBranches();
-            }
-            Collection<BranchGraphic> branches = lines.entrySet().stream()
-                    .map(Map.Entry::getValue)
-                    .flatMap(line -> line.getBranches().stream())
-                    .collect(Collectors.toList());
-
-            // one layer per base voltage, so split line segments per base voltage
-            Map<Integer, List<BranchGraphic>> orderedBranches = new TreeMap<>();
-            for (BranchGraphic branch : branches) {
-                orderedBranches.computeIfAbsent(branch.getLine().getDrawOrder(), k -> new ArrayList<>())
-                            .add(branch);
-            }
+        // network is loaded concurrently with geographical data, and only needed to bind graphic objects to models
+        NetworkModelBinding modelBinding = new NetworkModelBinding(projectCase, context.getExecutor());
+        binding = modelBinding;
+        // geographical data is shared with maps of other cases, only the binding is specific to this one
+        geoDataConsumer = data -> {
+            MapHitTester hitTester = new MapHitTester(data.getSubstationIndex(), data.getBranchesIndexes(), modelBinding);
+            Platform.runLater(() -> show(data, hitTester));
+        };
+        SharedGeoData.getInstance().subscribe(geoDataConsumer, context.getExecutor());
+    }
 
-            // map model to graphic
-            mapModelToGraphic(substations, lines);
-
-            // build indexes
-            SubstationGraphicIndex substationIndex = SubstationGraphicIndex.build(substations.values());
-            SortedMap<Integer, BranchGraphicIndex> branchesIndexes = orderedBranches.entrySet()
-                    .stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey,
-                        e -> BranchGraphicIndex.build(e.getValue()),
-                        (v1, v2) -> {
-                            throw new AssertionError();
-                        },
-                        TreeMap::new));
-
-            Platform.runLater(() -> {
-                view.addLayer(new SubstationLayer(view, substationIndex));
-                view.addLayer(new LineLayer(view, branchesIndexes, taskQueue, config));
-                view.markDirty();
-                progressIndicator.setVisible(false);
-                mainPane.setDisable(false);
-            });
-        });
+    private void show(GeoData data, MapHitTester hitTester) {
+        lines = data.getLines();
+        if (lineLayer == null) {
+            substationLayer = new SubstationLayer(view, data.getSubstationIndex(), tileCache, taskQueue, metrics);
+            lineLayer = new LineLayer(view, data.getBranchesIndexes(), tileCache, taskQueue, metrics, config, hitTester, this::showHits);
+            view.addLayer(substationLayer);
+            view.addLayer(lineLayer);
+            // partial data can already be browsed
+            mainPane.setDisable(false);
+        } else {
+            substationLayer.setSubstationIndex(data.getSubstationIndex());
+            lineLayer.setBranchesIndexes(data.getBranchesIndexes(), hitTester);
+        }
+        progressIndicator.setVisible(!data.isComplete());
+        if (config.isShowLoading().get()) {
+            updateLoadings();
+        }
+        view.markDirty();
     }
 
     @Override
     public void dispose() {
-        // nothing to dispose
+        projectCase.removeListener(this);
+        if (geoDataConsumer != null) {
+            SharedGeoData.getInstance().unsubscribe(geoDataConsumer);
+        }
+        metricsRefresh.stop();
+        metrics.unregister();
+        // tile memory budget is shared with maps of other cases
+        tileCache.clear();
     }
 }
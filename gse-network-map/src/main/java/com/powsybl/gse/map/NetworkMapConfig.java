@@ -16,7 +16,19 @@ public class NetworkMapConfig {
 
     private final BooleanProperty showPylons = new SimpleBooleanProperty(false);
 
+    private final BooleanProperty showMetrics = new SimpleBooleanProperty(false);
+
+    private final BooleanProperty showLoading = new SimpleBooleanProperty(false);
+
     public BooleanProperty isShowPylons() {
         return showPylons;
     }
+
+    public BooleanProperty isShowMetrics() {
+        return showMetrics;
+    }
+
+    public BooleanProperty isShowLoading() {
+        return showLoading;
+    }
 }
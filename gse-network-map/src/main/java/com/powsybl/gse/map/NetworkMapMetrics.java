@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rendering metrics of a network map, always collected as recording is cheap, and exposed to the toolbar overlay and
+ * through JMX, so that rendering regressions can be investigated on operator workstations without trace logging.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class NetworkMapMetrics implements NetworkMapMetricsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NetworkMapMetrics.class);
+
+    private static final AtomicInteger MAP_COUNT = new AtomicInteger(0);
+
+    private final CancellableGraphicTaskQueue taskQueue;
+
+    private final TileCache tileCache;
+
+    private final ConcurrentMap<String, TimeHistogram> layoutTimes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, TimeHistogram> tileRenderingTimes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, TimeHistogram> indexQueryTimes = new ConcurrentHashMap<>();
+
+    private final LongAdder renderedTiles = new LongAdder();
+
+    private final LongAdder cancelledTiles = new LongAdder();
+
+    private final LongAdder searchedSegments = new LongAdder();
+
+    private final LongAdder simplifiedSegments = new LongAdder();
+
+    private final LongAdder culledSegments = new LongAdder();
+
+    private ObjectName objectName;
+
+    NetworkMapMetrics(CancellableGraphicTaskQueue taskQueue, TileCache tileCache) {
+        this.taskQueue = Objects.requireNonNull(taskQueue);
+        this.tileCache = Objects.requireNonNull(tileCache);
+    }
+
+    private static void record(ConcurrentMap<String, TimeHistogram> histograms, String layer, long nanos) {
+        histograms.computeIfAbsent(layer, k -> new TimeHistogram()).record(nanos);
+    }
+
+    void recordLayout(String layer, long nanos) {
+        record(layoutTimes, layer, nanos);
+    }
+
+    void recordTileRendering(String layer, long nanos) {
+        record(tileRenderingTimes, layer, nanos);
+        renderedTiles.increment();
+    }
+
+    void recordTileCancellation() {
+        cancelledTiles.increment();
+    }
+
+    void recordIndexQuery(String layer, long nanos) {
+        record(indexQueryTimes, layer, nanos);
+    }
+
+    /**
+     * @param searched segments of branches found by the index query
+     * @param simplified segments removed by simplification
+     * @param culled segments kept by simplification but outside of tile bounds
+     */
+    void recordSegments(long searched, long simplified, long culled) {
+        searchedSegments.add(searched);
+        simplifiedSegments.add(simplified);
+        culledSegments.add(culled);
+    }
+
+    private static Map<String, String> summarize(Map<String, TimeHistogram> histograms) {
+        Map<String, String> summaries = new TreeMap<>();
+        histograms.forEach((layer, histogram) -> summaries.put(layer, histogram.toString()));
+        return summaries;
+    }
+
+    @Override
+    public Map<String, String> getLayoutTimes() {
+        return summarize(layoutTimes);
+    }
+
+    @Override
+    public Map<String, String> getTileRenderingTimes() {
+        return summarize(tileRenderingTimes);
+    }
+
+    @Override
+    public Map<String, String> getIndexQueryTimes() {
+        return summarize(indexQueryTimes);
+    }
+
+    @Override
+    public long getRenderedTileCount() {
+        return renderedTiles.sum();
+    }
+
+    @Override
+    public long getCancelledTileCount() {
+        return cancelledTiles.sum();
+    }
+
+    @Override
+    public long getSearchedSegmentCount() {
+        return searchedSegments.sum();
+    }
+
+    @Override
+    public long getSimplifiedSegmentCount() {
+        return simplifiedSegments.sum();
+    }
+
+    @Override
+    public long getCulledSegmentCount() {
+        return culledSegments.sum();
+    }
+
+    @Override
+    public long getDrawnSegmentCount() {
+        return searchedSegments.sum() - simplifiedSegments.sum() - culledSegments.sum();
+    }
+
+    @Override
+    public double getSimplificationRatio() {
+        long searched = searchedSegments.sum();
+        return searched > 0 ? (double) (searched - simplifiedSegments.sum()) / searched : 1;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return taskQueue.getTaskCount();
+    }
+
+    @Override
+    public int getCachedTileCount() {
+        return tileCache.getTileCount();
+    }
+
+    @Override
+    public long getTileCacheSize() {
+        return tileCache.getSize();
+    }
+
+    @Override
+    public void reset() {
+        layoutTimes.clear();
+        tileRenderingTimes.clear();
+        indexQueryTimes.clear();
+        renderedTiles.reset();
+        cancelledTiles.reset();
+        searchedSegments.reset();
+        simplifiedSegments.reset();
+        culledSegments.reset();
+    }
+
+    /**
+     * Multi-line summary for the toolbar overlay.
+     */
+    String format() {
+        StringBuilder builder = new StringBuilder();
+        for (String layer : new TreeMap<>(layoutTimes).keySet()) {
+            builder.append(layer).append(System.lineSeparator())
+                    .append("  layout ").append(layoutTimes.get(layer)).append(System.lineSeparator());
+            TimeHistogram tileRenderingTime = tileRenderingTimes.get(layer);
+            if (tileRenderingTime != null) {
+                builder.append("  tile   ").append(tileRenderingTime).append(System.lineSeparator());
+            }
+            TimeHistogram indexQueryTime = indexQueryTimes.get(layer);
+            if (indexQueryTime != null) {
+                builder.append("  query  ").append(indexQueryTime).append(System.lineSeparator());
+            }
+        }
+        builder.append(String.format("segments %d searched, %d drawn, %d simplified (ratio %.2f), %d culled",
+                getSearchedSegmentCount(), getDrawnSegmentCount(), getSimplifiedSegmentCount(),
+                getSimplificationRatio(), getCulledSegmentCount()))
+                .append(System.lineSeparator())
+                .append(String.format("tiles %d rendered, %d cancelled, %d cached (%d MB), %d tasks queued",
+                        getRenderedTileCount(), getCancelledTileCount(), getCachedTileCount(),
+                        getTileCacheSize() / (1024 * 1024), getQueueDepth()));
+        return builder.toString();
+    }
+
+    /**
+     * Register to the platform MBean server, a failure is only logged as metrics are not essential to the map.
+     */
+    void register() {
+        try {
+            ObjectName name = new ObjectName("com.powsybl.gse.map:type=NetworkMapMetrics,id=" + MAP_COUNT.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            LOGGER.warn("Cannot register network map metrics MBean: {}", e.toString());
+        }
+    }
+
+    void unregister() {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOGGER.warn("Cannot unregister network map metrics MBean: {}", e.toString());
+            }
+            objectName = null;
+        }
+    }
+}
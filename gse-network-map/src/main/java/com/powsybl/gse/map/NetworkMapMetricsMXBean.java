@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.util.Map;
+
+/**
+ * JMX view of the rendering metrics of a network map. Durations are summarized per layer.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public interface NetworkMapMetricsMXBean {
+
+    /**
+     * Time to compose cached tiles on the JavaFX application thread, per layer.
+     */
+    Map<String, String> getLayoutTimes();
+
+    /**
+     * Time to render one tile in background, per layer.
+     */
+    Map<String, String> getTileRenderingTimes();
+
+    /**
+     * Time to query the spatial index for one tile, per layer.
+     */
+    Map<String, String> getIndexQueryTimes();
+
+    long getRenderedTileCount();
+
+    long getCancelledTileCount();
+
+    /**
+     * Segments of branches found by index queries.
+     */
+    long getSearchedSegmentCount();
+
+    /**
+     * Segments removed by simplification.
+     */
+    long getSimplifiedSegmentCount();
+
+    /**
+     * Segments outside of tile bounds.
+     */
+    long getCulledSegmentCount();
+
+    long getDrawnSegmentCount();
+
+    /**
+     * Ratio of searched segments kept by simplification.
+     */
+    double getSimplificationRatio();
+
+    int getQueueDepth();
+
+    int getCachedTileCount();
+
+    long getTileCacheSize();
+
+    void reset();
+}
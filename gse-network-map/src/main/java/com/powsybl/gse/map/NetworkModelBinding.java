@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.powsybl.afs.ext.base.ProjectCase;
+import com.powsybl.iidm.network.Line;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.Substation;
+import org.apache.commons.lang3.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Lazy binding of graphic objects to the network model. The network is loaded in background as soon as the binding
+ * is created, concurrently with geographical data loading, and models are only looked up by id when needed, for
+ * instance when hit tested, instead of scanning the whole network up front.
+ * <p>
+ * Lookups never wait for the network: until it is loaded, or if loading failed, graphic objects are simply unbound.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class NetworkModelBinding {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NetworkModelBinding.class);
+
+    private final ProjectCase projectCase;
+
+    private final Executor executor;
+
+    private volatile CompletableFuture<Network> network;
+
+    NetworkModelBinding(ProjectCase projectCase, Executor executor) {
+        this.projectCase = Objects.requireNonNull(projectCase);
+        this.executor = Objects.requireNonNull(executor);
+        network = load();
+    }
+
+    private CompletableFuture<Network> load() {
+        CompletableFuture<Network> future = CompletableFuture.supplyAsync(() -> {
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            Network result = projectCase.getNetwork();
+            LOGGER.info("Network {} loaded in {} ms", result.getId(), stopWatch.getTime());
+            return result;
+        }, executor);
+        future.exceptionally(e -> {
+            LOGGER.error(e.toString(), e);
+            return null;
+        });
+        return future;
+    }
+
+    /**
+     * Load the network again after an update, graphic objects stay bound to the previous network until then.
+     *
+     * @return future completed once graphic objects are bound to the new network
+     */
+    CompletableFuture<Network> reload() {
+        CompletableFuture<Network> future = load();
+        return future.thenApply(result -> {
+            network = future;
+            return result;
+        });
+    }
+
+    /**
+     * Future of the network, completed once loaded.
+     */
+    CompletableFuture<Network> getNetwork() {
+        return network;
+    }
+
+    private Network getNetworkIfLoaded() {
+        CompletableFuture<Network> future = network;
+        return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    /**
+     * @return the substation with this id, or {@code null} if not in the network or if the network is not loaded yet
+     */
+    Substation getSubstation(SubstationGraphic substation) {
+        Network loadedNetwork = getNetworkIfLoaded();
+        return loadedNetwork != null ? loadedNetwork.getSubstation(substation.getId()) : null;
+    }
+
+    /**
+     * @return the line with this id, or {@code null} if not in the network or if the network is not loaded yet
+     */
+    Line getLine(LineGraphic line) {
+        Network loadedNetwork = getNetworkIfLoaded();
+        return loadedNetwork != null ? loadedNetwork.getLine(line.getId()) : null;
+    }
+}
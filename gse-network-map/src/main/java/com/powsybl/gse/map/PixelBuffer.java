@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Objects;
+
+/**
+ * Software rasterizer drawing anti-aliased lines and discs in a premultiplied ARGB pixel array. Unlike a canvas it
+ * can be used from any thread.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class PixelBuffer {
+
+    private final int width;
+
+    private final int height;
+
+    private final int[] pixels;
+
+    private boolean empty = true;
+
+    private int alpha = 255;
+    private int red = 0;
+    private int green = 0;
+    private int blue = 0;
+
+    PixelBuffer(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid pixel buffer size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        pixels = new int[width * height];
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return {@code true} if nothing has been drawn
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    void setColor(Color color) {
+        Objects.requireNonNull(color);
+        alpha = (int) Math.round(color.getOpacity() * 255);
+        red = (int) Math.round(color.getRed() * alpha);
+        green = (int) Math.round(color.getGreen() * alpha);
+        blue = (int) Math.round(color.getBlue() * alpha);
+    }
+
+    /**
+     * Blend current color over a pixel, with a coverage in [0, 1].
+     */
+    private void blend(int x, int y, double coverage) {
+        if (coverage <= 0 || x < 0 || y < 0 || x >= width || y >= height) {
+            return;
+        }
+        double c = Math.min(coverage, 1);
+        int sa = (int) (alpha * c + 0.5);
+        int sr = (int) (red * c + 0.5);
+        int sg = (int) (green * c + 0.5);
+        int sb = (int) (blue * c + 0.5);
+        int i = y * width + x;
+        int dst = pixels[i];
+        int inv = 255 - sa;
+        int a = sa + ((dst >>> 24) * inv + 127) / 255;
+        int r = sr + (((dst >> 16) & 0xFF) * inv + 127) / 255;
+        int g = sg + (((dst >> 8) & 0xFF) * inv + 127) / 255;
+        int b = sb + ((dst & 0xFF) * inv + 127) / 255;
+        pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+        empty = false;
+    }
+
+    private static double getSegmentDistance(double x, double y, double x0, double y0, double x1, double y1) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double t = 0;
+        double length2 = dx * dx + dy * dy;
+        if (length2 > 0) {
+            t = Math.max(0, Math.min(1, ((x - x0) * dx + (y - y0) * dy) / length2));
+        }
+        double ex = x - (x0 + t * dx);
+        double ey = y - (y0 + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+
+    /**
+     * Draw a line with round caps. Pixels are covered according to their center distance to the segment, walking
+     * along the major axis so that only pixels close to the line are visited.
+     *
+     * @return {@code false} if the line is culled because entirely outside of the buffer
+     */
+    boolean drawLine(double x0, double y0, double x1, double y1, double lineWidth) {
+        double radius = lineWidth / 2;
+        double reach = radius + 1;
+        if (Math.max(x0, x1) + reach < 0 || Math.min(x0, x1) - reach > width
+                || Math.max(y0, y1) + reach < 0 || Math.min(y0, y1) - reach > height) {
+            return false;
+        }
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        // half height of the band of pixels to check on each column (or row), enough for a slope up to 1
+        int halfBand = (int) Math.ceil(reach * 1.5) + 1;
+        if (Math.abs(dx) >= Math.abs(dy)) {
+            int minX = Math.max(0, (int) Math.floor(Math.min(x0, x1) - reach));
+            int maxX = Math.min(width - 1, (int) Math.ceil(Math.max(x0, x1) + reach));
+            for (int x = minX; x <= maxX; x++) {
+                double px = x + 0.5;
+                double t = dx != 0 ? Math.max(0, Math.min(1, (px - x0) / dx)) : 0;
+                int cy = (int) Math.floor(y0 + t * dy);
+                for (int y = Math.max(0, cy - halfBand); y <= Math.min(height - 1, cy + halfBand); y++) {
+                    blend(x, y, radius + 0.5 - getSegmentDistance(px, y + 0.5, x0, y0, x1, y1));
+                }
+            }
+        } else {
+            int minY = Math.max(0, (int) Math.floor(Math.min(y0, y1) - reach));
+            int maxY = Math.min(height - 1, (int) Math.ceil(Math.max(y0, y1) + reach));
+            for (int y = minY; y <= maxY; y++) {
+                double py = y + 0.5;
+                double t = Math.max(0, Math.min(1, (py - y0) / dy));
+                int cx = (int) Math.floor(x0 + t * dx);
+                for (int x = Math.max(0, cx - halfBand); x <= Math.min(width - 1, cx + halfBand); x++) {
+                    blend(x, y, radius + 0.5 - getSegmentDistance(x + 0.5, py, x0, y0, x1, y1));
+                }
+            }
+        }
+        return true;
+    }
+
+    void fillCircle(double cx, double cy, double radius) {
+        int minX = Math.max(0, (int) Math.floor(cx - radius - 1));
+        int maxX = Math.min(width - 1, (int) Math.ceil(cx + radius + 1));
+        int minY = Math.max(0, (int) Math.floor(cy - radius - 1));
+        int maxY = Math.min(height - 1, (int) Math.ceil(cy + radius + 1));
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                double ex = x + 0.5 - cx;
+                double ey = y + 0.5 - cy;
+                blend(x, y, radius + 0.5 - Math.sqrt(ex * ex + ey * ey));
+            }
+        }
+    }
+
+    WritableImage toImage() {
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        return image;
+    }
+}
@@ -13,11 +13,16 @@ import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Parse RTE substation and line segment coordinates.
@@ -33,6 +38,7 @@ import java.util.*;
  *         <a href="https://rte-opendata.opendatasoft.com/explore/dataset/lignes-souterraines/download/?format=csv&timezone=Europe/Berlin&use_labels_for_header=true">lignes-souterraines.csv</a>
  *     </li>
  * </ul>
+ * Parsed data is stored in a binary cache next to the CSV files, see {@link RteOpenDataCache}.
  *
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
  */
@@ -40,6 +46,17 @@ public final class RteOpenData {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RteOpenData.class);
 
+    private static final char SEPARATOR = ';';
+
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+
+    private static final String SUBSTATIONS_FILE_NAME = "postes-electriques-rte-et-client.csv";
+    private static final String AERIAL_LINES_FILE_NAME = "lignes-aeriennes.csv";
+    private static final String UNDERGROUND_LINES_FILE_NAME = "lignes-souterraines.csv";
+
+    private static final String SUBSTATIONS_CACHE_FILE_NAME = "rte-open-data-substations.bin";
+    private static final String LINES_CACHE_FILE_NAME = "rte-open-data-lines.bin";
+
     enum BaseVoltage {
         VL_400_KV(Color.RED, 0),
         VL_225_KV(Color.rgb(34, 139, 34), 1),
@@ -104,82 +121,181 @@ public final class RteOpenData {
         }
     }
 
-    private static void skipHeader(BufferedReader reader) throws IOException {
-        String line = reader.readLine();
-        if (line == null) {
+    /**
+     * Base voltage lookup directly on CSV bytes, each distinct label is only decoded once.
+     */
+    private static final class BaseVoltageMatcher {
+
+        private final List<byte[]> labels = new ArrayList<>();
+
+        private final List<BaseVoltage> baseVoltages = new ArrayList<>();
+
+        private BaseVoltage match(CsvTokenizer tokenizer, int field) {
+            for (int i = 0; i < labels.size(); i++) {
+                if (tokenizer.fieldEquals(field, labels.get(i))) {
+                    return baseVoltages.get(i);
+                }
+            }
+            String label = tokenizer.getString(field);
+            BaseVoltage baseVoltage = parseBaseVoltage(label);
+            labels.add(label.getBytes(StandardCharsets.UTF_8));
+            baseVoltages.add(baseVoltage);
+            return baseVoltage;
+        }
+    }
+
+    /**
+     * Memory map a CSV file, skip its header and split remaining rows in chunks that can be parsed in parallel.
+     */
+    private static List<ByteBuffer> mapRows(Path file) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CsvTokenizer tokenizer = new CsvTokenizer(buffer, SEPARATOR);
+        if (!tokenizer.nextRow()) {
             throw new PowsyblException("Header is missing");
         }
+        ByteBuffer rows = tokenizer.remaining();
+        int chunkCount = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), rows.remaining() / MIN_CHUNK_SIZE));
+        return CsvTokenizer.split(rows, chunkCount);
+    }
+
+    private static long getRowsPerSecond(long rowCount, StopWatch stopWatch) {
+        return rowCount * 1000 / Math.max(1, stopWatch.getTime());
+    }
+
+    static List<Path> getSubstationSources(Path dir) {
+        return Collections.singletonList(dir.resolve(SUBSTATIONS_FILE_NAME));
+    }
+
+    static List<Path> getLineSources(Path dir) {
+        return Arrays.asList(dir.resolve(AERIAL_LINES_FILE_NAME), dir.resolve(UNDERGROUND_LINES_FILE_NAME));
+    }
+
+    private static SubstationTable.Builder parseSubstationChunk(ByteBuffer chunk) {
+        SubstationTable.Builder builder = new SubstationTable.Builder();
+        BaseVoltageMatcher baseVoltageMatcher = new BaseVoltageMatcher();
+        CsvTokenizer tokenizer = new CsvTokenizer(chunk, SEPARATOR);
+        while (tokenizer.nextRow()) {
+            String id = tokenizer.getString(0);
+            BaseVoltage baseVoltage = baseVoltageMatcher.match(tokenizer, 4);
+            double lon = tokenizer.getDouble(5);
+            double lat = tokenizer.getDouble(6);
+            builder.add(id, baseVoltage, lon, lat);
+        }
+        return builder;
+    }
+
+    /**
+     * Parse substations CSV file, without using the cache.
+     */
+    static SubstationTable parseSubstationTable(Path file) {
+        // chunks are parsed in parallel and concatenated in file order
+        return mapRows(file).parallelStream()
+                .map(RteOpenData::parseSubstationChunk)
+                .collect(Collectors.toList())
+                .stream()
+                .reduce(SubstationTable.Builder::append)
+                .orElseGet(SubstationTable.Builder::new)
+                .build();
     }
 
     public static Map<String, SubstationGraphic> parseSubstations() {
-        Map<String, SubstationGraphic> coords = new HashMap<>();
+        return parseSubstations(PlatformConfig.defaultConfig().getConfigDir());
+    }
 
+    public static Map<String, SubstationGraphic> parseSubstations(Path dir) {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        int substationCount = 0;
-
-        try (BufferedReader reader = Files.newBufferedReader(PlatformConfig.defaultConfig().getConfigDir().resolve("postes-electriques-rte-et-client.csv"))) {
-            skipHeader(reader);
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split(";");
-                String id = tokens[0];
-                Color color = parseBaseVoltage(tokens[4]).getColor();
-                double lon = Double.parseDouble(tokens[5]);
-                double lat = Double.parseDouble(tokens[6]);
-                coords.put(id, new SubstationGraphic(id, color, new Coordinate(lon, lat)));
-                substationCount++;
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        List<Path> sources = getSubstationSources(dir);
+        Path cacheFile = dir.resolve(SUBSTATIONS_CACHE_FILE_NAME);
+        SubstationTable table = RteOpenDataCache.readSubstations(cacheFile, sources);
+        boolean cached = table != null;
+        if (!cached) {
+            table = parseSubstationTable(sources.get(0));
+            RteOpenDataCache.writeSubstations(cacheFile, sources, table);
         }
+        Map<String, SubstationGraphic> substations = table.toGraphics();
 
-        LOGGER.info("{} substations read in {} ms", substationCount, stopWatch.getTime());
+        LOGGER.info("{} substations read in {} ms ({} rows/s, cached={})", substations.size(), stopWatch.getTime(),
+                getRowsPerSecond(substations.size(), stopWatch), cached);
 
-        return coords;
+        return substations;
     }
 
-    private static int parseLine(Map<String, LineGraphic> lines, String fileName, int lon1Index, int lat1Index, int lon2Index, int lat2Index) {
-        int segmentCount = 0;
-        try (BufferedReader reader = Files.newBufferedReader(PlatformConfig.defaultConfig().getConfigDir().resolve(fileName))) {
-            skipHeader(reader);
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split(";");
-                String lineId = tokens[1];
-                if (lineId.isEmpty()) {
-                    continue;
-                }
-                BaseVoltage baseVoltage = parseBaseVoltage(tokens[5]);
-                double lon1 = Double.parseDouble(tokens[lon1Index]);
-                double lat1 = Double.parseDouble(tokens[lat1Index]);
-                double lon2 = Double.parseDouble(tokens[lon2Index]);
-                double lat2 = Double.parseDouble(tokens[lat2Index]);
-                LineGraphic lineGraphic  = lines.get(lineId);
-                if (lineGraphic == null) {
-                    lineGraphic = new LineGraphic(lineId, baseVoltage.getOrder(), baseVoltage.getColor());
-                    lines.put(lineId, lineGraphic);
-                }
-                lineGraphic.getSegments().add(new SegmentGraphic(new Coordinate(lon1, lat1), new Coordinate(lon2, lat2), lineGraphic));
-                segmentCount++;
+    private static LineTable.Builder parseLineChunk(ByteBuffer chunk, int lon1Index, int lat1Index, int lon2Index, int lat2Index) {
+        LineTable.Builder builder = new LineTable.Builder();
+        BaseVoltageMatcher baseVoltageMatcher = new BaseVoltageMatcher();
+        CsvTokenizer tokenizer = new CsvTokenizer(chunk, SEPARATOR);
+        String lineId = null;
+        int lineIdStart = 0;
+        int lineIdEnd = 0;
+        while (tokenizer.nextRow()) {
+            if (tokenizer.isEmpty(1)) {
+                continue;
             }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+            // segments of a line are most of the time consecutive, so reuse previous id if possible
+            if (lineId == null || !tokenizer.fieldEquals(1, lineIdStart, lineIdEnd)) {
+                lineId = tokenizer.getString(1);
+                lineIdStart = tokenizer.getFieldStart(1);
+                lineIdEnd = tokenizer.getFieldEnd(1);
+            }
+            BaseVoltage baseVoltage = baseVoltageMatcher.match(tokenizer, 5);
+            double lon1 = tokenizer.getDouble(lon1Index);
+            double lat1 = tokenizer.getDouble(lat1Index);
+            double lon2 = tokenizer.getDouble(lon2Index);
+            double lat2 = tokenizer.getDouble(lat2Index);
+            builder.addSegment(lineId, baseVoltage, lon1, lat1, lon2, lat2);
         }
-        return segmentCount;
+        return builder;
+    }
+
+    private static List<LineTable.Builder> parseLine(Path file, int lon1Index, int lat1Index, int lon2Index, int lat2Index) {
+        return mapRows(file).parallelStream()
+                .map(chunk -> parseLineChunk(chunk, lon1Index, lat1Index, lon2Index, lat2Index))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Parse lines CSV files, without using the cache.
+     */
+    static LineTable parseLineTable(List<Path> sources) {
+        // both files, and chunks of each file, are parsed in parallel and concatenated in file order
+        return IntStream.range(0, sources.size())
+                .parallel()
+                .mapToObj(i -> i == 0 ? parseLine(sources.get(i), 8, 9, 10, 11) : parseLine(sources.get(i), 9, 10, 11, 12))
+                .collect(Collectors.toList())
+                .stream()
+                .flatMap(List::stream)
+                .reduce(LineTable.Builder::append)
+                .orElseGet(LineTable.Builder::new)
+                .build();
     }
 
     public static Map<String, LineGraphic> parseLines() {
-        Map<String, LineGraphic> lines = new HashMap<>();
+        return parseLines(PlatformConfig.defaultConfig().getConfigDir());
+    }
 
+    public static Map<String, LineGraphic> parseLines(Path dir) {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        int segmentCount = parseLine(lines, "lignes-aeriennes.csv", 8, 9, 10, 11);
-        segmentCount += parseLine(lines, "lignes-souterraines.csv", 9, 10, 11, 12);
+        List<Path> sources = getLineSources(dir);
+        Path cacheFile = dir.resolve(LINES_CACHE_FILE_NAME);
+        LineTable table = RteOpenDataCache.readLines(cacheFile, sources);
+        boolean cached = table != null;
+        if (!cached) {
+            table = parseLineTable(sources);
+            RteOpenDataCache.writeLines(cacheFile, sources, table);
+        }
+        Map<String, LineGraphic> lines = table.toGraphics();
 
-        LOGGER.info("{} lines, {} segments read in {} ms", lines.size(), segmentCount, stopWatch.getTime());
+        LOGGER.info("{} lines, {} segments read in {} ms ({} rows/s, cached={})", lines.size(), table.getSegmentCount(),
+                stopWatch.getTime(), getRowsPerSecond(table.getSegmentCount(), stopWatch), cached);
 
         return lines;
     }
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Binary cache of RTE open data, so that CSV files are only parsed once.
+ * <p>
+ * The cache file is memory mapped: identifiers are stored in a dictionary (offsets + UTF-8 bytes) and coordinates
+ * are stored column by column so that they can be read as {@link DoubleBuffer} views without any copy.
+ * A cache file is only used if its format version and the size and last modified time of each source file
+ * are the same as when it has been written.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class RteOpenDataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RteOpenDataCache.class);
+
+    private static final int MAGIC = 0x47534547; // "GSEG"
+
+    private static final int VERSION = 3;
+
+    static final byte SUBSTATIONS = 1;
+
+    static final byte LINES = 2;
+
+    static final byte BRANCH_INDEX = 4;
+
+    private RteOpenDataCache() {
+    }
+
+    private static void writeHeader(DataOutputStream os, byte kind, List<Path> sources) throws IOException {
+        os.writeInt(MAGIC);
+        os.writeInt(VERSION);
+        os.writeByte(kind);
+        os.writeInt(sources.size());
+        for (Path source : sources) {
+            os.writeLong(Files.size(source));
+            os.writeLong(Files.getLastModifiedTime(source).toMillis());
+        }
+    }
+
+    private static boolean checkHeader(ByteBuffer buffer, byte kind, List<Path> sources) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.get() != kind || buffer.getInt() != sources.size()) {
+            return false;
+        }
+        for (Path source : sources) {
+            long size = buffer.getLong();
+            long lastModified = buffer.getLong();
+            if (size != Files.size(source) || lastModified != Files.getLastModifiedTime(source).toMillis()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void writeIds(DataOutputStream os, String[] ids) throws IOException {
+        byte[][] bytes = new byte[ids.length][];
+        int offset = 0;
+        os.writeInt(ids.length);
+        os.writeInt(offset);
+        for (int i = 0; i < ids.length; i++) {
+            bytes[i] = ids[i].getBytes(StandardCharsets.UTF_8);
+            offset += bytes[i].length;
+            os.writeInt(offset);
+        }
+        for (byte[] b : bytes) {
+            os.write(b);
+        }
+    }
+
+    static String[] readIds(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        int[] offsets = new int[count + 1];
+        buffer.asIntBuffer().get(offsets);
+        buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+        byte[] bytes = new byte[offsets[count]];
+        buffer.get(bytes);
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+        return ids;
+    }
+
+    private static void writeBytes(DataOutputStream os, byte[] bytes) throws IOException {
+        os.writeInt(bytes.length);
+        os.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void writeDoubles(DataOutputStream os, int count, DoubleColumn column) throws IOException {
+        for (int i = 0; i < count; i++) {
+            os.writeDouble(column.get(i));
+        }
+    }
+
+    /**
+     * Map the next {@code count} doubles of the buffer, without copy.
+     */
+    private static DoubleBuffer mapDoubles(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(count * Double.BYTES);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        return slice.asDoubleBuffer();
+    }
+
+    @FunctionalInterface
+    private interface DoubleColumn {
+        double get(int i);
+    }
+
+    @FunctionalInterface
+    interface CacheReader<T> {
+        T read(ByteBuffer buffer);
+    }
+
+    @FunctionalInterface
+    interface CacheWriter {
+        void write(DataOutputStream os) throws IOException;
+    }
+
+    static <T> T read(Path cacheFile, byte kind, List<Path> sources, CacheReader<T> reader) {
+        Objects.requireNonNull(cacheFile);
+        Objects.requireNonNull(sources);
+        if (!Files.exists(cacheFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            // mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!checkHeader(buffer, kind, sources)) {
+                LOGGER.info("Cache {} is out of date", cacheFile);
+                return null;
+            }
+            return reader.read(buffer);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            LOGGER.warn("Cannot read cache {}: {}", cacheFile, e.toString());
+            return null;
+        }
+    }
+
+    static void write(Path cacheFile, byte kind, List<Path> sources, CacheWriter writer) {
+        Objects.requireNonNull(cacheFile);
+        Objects.requireNonNull(sources);
+        Path tmpFile = null;
+        try {
+            // unique temporary file, so that concurrent writers, possibly of other processes, never mix their data
+            tmpFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                writeHeader(os, kind, sources);
+                writer.write(os);
+            }
+            try {
+                Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // cache is only an optimization
+            LOGGER.warn("Cannot write cache {}: {}", cacheFile, e.toString());
+        } finally {
+            if (tmpFile != null) {
+                deleteTmpFile(tmpFile);
+            }
+        }
+    }
+
+    private static void deleteTmpFile(Path tmpFile) {
+        try {
+            // already moved if cache has been successfully written
+            Files.deleteIfExists(tmpFile);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete {}: {}", tmpFile, e.toString());
+        }
+    }
+
+    static SubstationTable readSubstations(Path cacheFile, List<Path> sources) {
+        return read(cacheFile, SUBSTATIONS, sources, buffer -> {
+            String[] ids = readIds(buffer);
+            byte[] baseVoltages = readBytes(buffer);
+            DoubleBuffer lons = mapDoubles(buffer, ids.length);
+            DoubleBuffer lats = mapDoubles(buffer, ids.length);
+            return new SubstationTable(ids, baseVoltages, lons, lats);
+        });
+    }
+
+    static void writeSubstations(Path cacheFile, List<Path> sources, SubstationTable table) {
+        Objects.requireNonNull(table);
+        write(cacheFile, SUBSTATIONS, sources, os -> {
+            String[] ids = new String[table.size()];
+            byte[] baseVoltages = new byte[table.size()];
+            for (int i = 0; i < table.size(); i++) {
+                ids[i] = table.getId(i);
+                baseVoltages[i] = (byte) table.getBaseVoltage(i).ordinal();
+            }
+            writeIds(os, ids);
+            writeBytes(os, baseVoltages);
+            writeDoubles(os, table.size(), table::getLon);
+            writeDoubles(os, table.size(), table::getLat);
+        });
+    }
+
+    static LineTable readLines(Path cacheFile, List<Path> sources) {
+        return read(cacheFile, LINES, sources, buffer -> {
+            String[] ids = readIds(buffer);
+            byte[] baseVoltages = readBytes(buffer);
+            int[] segmentOffsets = new int[ids.length + 1];
+            buffer.asIntBuffer().get(segmentOffsets);
+            buffer.position(buffer.position() + segmentOffsets.length * Integer.BYTES);
+            int segmentCount = segmentOffsets[ids.length];
+            DoubleBuffer lons1 = mapDoubles(buffer, segmentCount);
+            DoubleBuffer lats1 = mapDoubles(buffer, segmentCount);
+            DoubleBuffer lons2 = mapDoubles(buffer, segmentCount);
+            DoubleBuffer lats2 = mapDoubles(buffer, segmentCount);
+            return new LineTable(ids, baseVoltages, segmentOffsets, lons1, lats1, lons2, lats2);
+        });
+    }
+
+    static void writeLines(Path cacheFile, List<Path> sources, LineTable table) {
+        Objects.requireNonNull(table);
+        write(cacheFile, LINES, sources, os -> {
+            String[] ids = new String[table.size()];
+            byte[] baseVoltages = new byte[table.size()];
+            for (int l = 0; l < table.size(); l++) {
+                ids[l] = table.getId(l);
+                baseVoltages[l] = (byte) table.getBaseVoltage(l).ordinal();
+            }
+            writeIds(os, ids);
+            writeBytes(os, baseVoltages);
+            for (int l = 0; l <= table.size(); l++) {
+                os.writeInt(l < table.size() ? table.getFirstSegment(l) : table.getSegmentCount());
+            }
+            int segmentCount = table.getSegmentCount();
+            writeDoubles(os, segmentCount, table::getLon1);
+            writeDoubles(os, segmentCount, table::getLat1);
+            writeDoubles(os, segmentCount, table::getLon2);
+            writeDoubles(os, segmentCount, table::getLat2);
+        });
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.google.auto.service.AutoService;
+import com.powsybl.commons.config.PlatformConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RTE open data CSV files of the configuration directory, see {@link RteOpenData}.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+@AutoService(GeoDataProvider.class)
+public class RteOpenDataProvider implements GeoDataProvider {
+
+    private static Path getDir() {
+        return PlatformConfig.defaultConfig().getConfigDir();
+    }
+
+    @Override
+    public String getName() {
+        return "rte-open-data";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return getSources().stream().allMatch(Files::exists);
+    }
+
+    @Override
+    public List<Path> getSources() {
+        Path dir = getDir();
+        List<Path> sources = new ArrayList<>(RteOpenData.getSubstationSources(dir));
+        sources.addAll(RteOpenData.getLineSources(dir));
+        return sources;
+    }
+
+    @Override
+    public void load(GeoDataHandler handler) {
+        Path dir = getDir();
+        handler.onSubstations(RteOpenData.parseSubstations(dir).values());
+        handler.onLines(RteOpenData.parseLines(dir).values());
+    }
+}
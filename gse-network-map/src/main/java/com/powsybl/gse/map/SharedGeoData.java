@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.powsybl.commons.util.ServiceLoaderCache;
+import com.powsybl.gse.util.GseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Geographical data shared by all network maps of the application. Graphic objects and indexes are never modified
+ * once published, so they are shared as is, and case specific state, like network model bindings or line loadings,
+ * stays in each map.
+ * <p>
+ * Data is loaded when the first map subscribes, and released when the last one unsubscribes.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class SharedGeoData {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedGeoData.class);
+
+    private static final List<GeoDataProvider> PROVIDERS = new ServiceLoaderCache<>(GeoDataProvider.class).getServices();
+
+    private static final SharedGeoData INSTANCE = new SharedGeoData();
+
+    private final List<Consumer<GeoData>> consumers = new ArrayList<>();
+
+    private GeoData data;
+
+    // incremented when data is released, so that snapshots of a load still running for released data are discarded
+    private int generation = 0;
+
+    private SharedGeoData() {
+    }
+
+    static SharedGeoData getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Subscribe to data snapshots. The consumer is called with the last published snapshot, if any, and then with
+     * each new one, from the loading thread and while holding a lock, so it should only hand the snapshot over.
+     *
+     * @param executor used to load data if not already loaded or loading
+     */
+    synchronized void subscribe(Consumer<GeoData> consumer, Executor executor) {
+        Objects.requireNonNull(consumer);
+        Objects.requireNonNull(executor);
+        consumers.add(consumer);
+        if (consumers.size() == 1) {
+            load(executor);
+        } else if (data != null) {
+            consumer.accept(data);
+        }
+        LOGGER.debug("Geographical data subscribed, {} subscribers", consumers.size());
+    }
+
+    synchronized void unsubscribe(Consumer<GeoData> consumer) {
+        if (consumers.remove(consumer) && consumers.isEmpty()) {
+            data = null;
+            generation++;
+            LOGGER.info("Geographical data released");
+        }
+    }
+
+    private void load(Executor executor) {
+        int loadGeneration = generation;
+        GseUtil.execute(executor, () -> {
+            List<GeoDataProvider> providers = PROVIDERS.stream()
+                    .filter(GeoDataProvider::isAvailable)
+                    .sorted(Comparator.comparing(GeoDataProvider::getName))
+                    .collect(Collectors.toList());
+            if (providers.isEmpty()) {
+                LOGGER.warn("No geographical data available");
+            }
+            new GeoDataLoader(providers, newData -> publish(newData, loadGeneration)).load();
+        });
+    }
+
+    private synchronized void publish(GeoData newData, int loadGeneration) {
+        if (loadGeneration == generation) {
+            data = newData;
+            consumers.forEach(consumer -> consumer.accept(newData));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.util.Arrays;
+
+/**
+ * Douglas-Peucker simplification of a branch precomputed for each integer zoom level, from 0 to a maximum level.
+ * At a given level, pylons kept are those which are further than one pixel from the simplified poly line.
+ * <p>
+ * Douglas-Peucker results are nested when tolerance decreases, so the algorithm is run only once per branch to get
+ * the significance of each pylon (the tolerance under which it is kept), then each level is a simple threshold.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class SimplificationPyramid {
+
+    private final int[][] levels;
+
+    private SimplificationPyramid(int[][] levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * Square of the pixel tolerance at a zoom level, in normalized Web Mercator coordinates.
+     */
+    private static double getSquareTolerance(int level) {
+        double tolerance = 1 / WebMercator.getScale(level);
+        return tolerance * tolerance;
+    }
+
+    static double getSquareSegmentDistance(double x, double y, double x1, double y1, double x2, double y2) {
+        double px = x1;
+        double py = y1;
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        if (dx != 0 || dy != 0) {
+            double t = ((x - x1) * dx + (y - y1) * dy) / (dx * dx + dy * dy);
+            if (t > 1) {
+                px = x2;
+                py = y2;
+            } else if (t > 0) {
+                px += dx * t;
+                py += dy * t;
+            }
+        }
+        dx = x - px;
+        dy = y - py;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Square of the tolerance under which each pylon is kept by Douglas-Peucker simplification.
+     */
+    private static double[] computeSignificances(BranchGraphic branch) {
+        int pylonCount = branch.getPylonCount();
+        double[] significances = new double[pylonCount];
+        significances[0] = Double.POSITIVE_INFINITY;
+        significances[pylonCount - 1] = Double.POSITIVE_INFINITY;
+
+        // explicit stack of (first, last) intervals to split, with significance of the split that created them
+        int[] firsts = new int[pylonCount];
+        int[] lasts = new int[pylonCount];
+        double[] bounds = new double[pylonCount];
+        int size = 0;
+        firsts[size] = 0;
+        lasts[size] = pylonCount - 1;
+        bounds[size] = Double.POSITIVE_INFINITY;
+        size++;
+        while (size > 0) {
+            size--;
+            int first = firsts[size];
+            int last = lasts[size];
+            double bound = bounds[size];
+            if (last - first < 2) {
+                continue;
+            }
+            int index = -1;
+            double maxSquareDistance = -1;
+            for (int i = first + 1; i < last; i++) {
+                double squareDistance = getSquareSegmentDistance(branch.getX(i), branch.getY(i),
+                                                                 branch.getX(first), branch.getY(first),
+                                                                 branch.getX(last), branch.getY(last));
+                if (squareDistance > maxSquareDistance) {
+                    index = i;
+                    maxSquareDistance = squareDistance;
+                }
+            }
+            // a pylon cannot be kept if the split it depends on is not
+            double significance = Math.min(maxSquareDistance, bound);
+            significances[index] = significance;
+            firsts[size] = first;
+            lasts[size] = index;
+            bounds[size] = significance;
+            size++;
+            firsts[size] = index;
+            lasts[size] = last;
+            bounds[size] = significance;
+            size++;
+        }
+        return significances;
+    }
+
+    private static int[] getPylons(double[] significances, int level) {
+        double squareTolerance = getSquareTolerance(level);
+        int[] pylons = new int[significances.length];
+        int count = 0;
+        for (int i = 0; i < significances.length; i++) {
+            if (significances[i] > squareTolerance) {
+                pylons[count++] = i;
+            }
+        }
+        return Arrays.copyOf(pylons, count);
+    }
+
+    static SimplificationPyramid build(BranchGraphic branch, int maxLevel) {
+        double[] significances = computeSignificances(branch);
+        int[][] levels = new int[maxLevel + 1][];
+        for (int level = 0; level <= maxLevel; level++) {
+            int[] pylons = getPylons(significances, level);
+            // levels are nested, same size means same pylons
+            levels[level] = level > 0 && levels[level - 1].length == pylons.length ? levels[level - 1] : pylons;
+        }
+        return new SimplificationPyramid(levels);
+    }
+
+    /**
+     * Simplify a branch for only one zoom level, without building a pyramid.
+     */
+    static int[] simplify(BranchGraphic branch, int level) {
+        return getPylons(computeSignificances(branch), level);
+    }
+
+    int getMaxLevel() {
+        return levels.length - 1;
+    }
+
+    /**
+     * Indexes of pylons to draw at a zoom level.
+     */
+    int[] getPylons(int level) {
+        return levels[level];
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import javafx.scene.paint.Color;
+
+import java.util.*;
+
+/**
+ * Substations of a zoom level grouped by cells of a {@link #CELL_SIZE} pixels grid, so that at low zoom the number of
+ * drawn symbols depends on the screen size and not on the number of substations. Each cluster is drawn at the
+ * centroid of its substations, with the most frequent color.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class SubstationClusters {
+
+    static final int CELL_SIZE = 16;
+
+    static final class Cluster {
+
+        private final double x;
+
+        private final double y;
+
+        private final int count;
+
+        private final Color color;
+
+        private Cluster(double x, double y, int count, Color color) {
+            this.x = x;
+            this.y = y;
+            this.count = count;
+            this.color = color;
+        }
+
+        /**
+         * Normalized Web Mercator x of the centroid.
+         */
+        double getX() {
+            return x;
+        }
+
+        /**
+         * Normalized Web Mercator y of the centroid.
+         */
+        double getY() {
+            return y;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        Color getColor() {
+            return color;
+        }
+    }
+
+    private final int zoom;
+
+    private final Map<Long, Cluster> clusters;
+
+    private SubstationClusters(int zoom, Map<Long, Cluster> clusters) {
+        this.zoom = zoom;
+        this.clusters = clusters;
+    }
+
+    private static int getCellCount(int zoom) {
+        return (int) (WebMercator.getScale(zoom) / CELL_SIZE);
+    }
+
+    private static long getCellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    private static int getCell(double value, int cellCount) {
+        return Math.max(0, Math.min(cellCount - 1, (int) Math.floor(value * cellCount)));
+    }
+
+    static SubstationClusters build(Iterable<SubstationGraphic> substations, int zoom) {
+        Objects.requireNonNull(substations);
+        int cellCount = getCellCount(zoom);
+
+        // accumulate coordinates and color frequencies per cell
+        Map<Long, double[]> sums = new HashMap<>();
+        Map<Long, Map<Color, Integer>> colors = new HashMap<>();
+        for (SubstationGraphic substation : substations) {
+            double x = WebMercator.projectLon(substation.getPosition().getLon());
+            double y = WebMercator.projectLat(substation.getPosition().getLat());
+            long key = getCellKey(getCell(x, cellCount), getCell(y, cellCount));
+            double[] sum = sums.computeIfAbsent(key, k -> new double[3]);
+            sum[0] += x;
+            sum[1] += y;
+            sum[2]++;
+            colors.computeIfAbsent(key, k -> new HashMap<>()).merge(substation.getColor(), 1, Integer::sum);
+        }
+
+        Map<Long, Cluster> clusters = new HashMap<>(sums.size());
+        for (Map.Entry<Long, double[]> e : sums.entrySet()) {
+            double[] sum = e.getValue();
+            Color color = colors.get(e.getKey()).entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElseThrow(AssertionError::new);
+            clusters.put(e.getKey(), new Cluster(sum[0] / sum[2], sum[1] / sum[2], (int) sum[2], color));
+        }
+        return new SubstationClusters(zoom, clusters);
+    }
+
+    int getZoom() {
+        return zoom;
+    }
+
+    int size() {
+        return clusters.size();
+    }
+
+    /**
+     * Clusters whose cell intersects normalized Web Mercator bounds, the lookup cost only depends on the number of
+     * cells covered by the bounds.
+     */
+    List<Cluster> getClusters(double x1, double y1, double x2, double y2) {
+        int cellCount = getCellCount(zoom);
+        int minCellX = getCell(x1, cellCount);
+        int maxCellX = getCell(x2, cellCount);
+        int minCellY = getCell(y1, cellCount);
+        int maxCellY = getCell(y2, cellCount);
+        List<Cluster> result = new ArrayList<>();
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                Cluster cluster = clusters.get(getCellKey(cellX, cellY));
+                if (cluster != null) {
+                    result.add(cluster);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -7,7 +7,6 @@
 package com.powsybl.gse.map;
 
 import com.github.davidmoten.rtree.geometry.Rectangle;
-import com.powsybl.iidm.network.Substation;
 import javafx.scene.paint.Color;
 
 import java.util.Objects;
@@ -23,8 +22,6 @@ public class SubstationGraphic implements IndexableGraphic {
 
     private final Coordinate position;
 
-    private Substation model;
-
     public SubstationGraphic(String id, Color color, Coordinate position) {
         this.id = Objects.requireNonNull(id);
         this.color = Objects.requireNonNull(color);
@@ -43,14 +40,6 @@ public class SubstationGraphic implements IndexableGraphic {
         return position;
     }
 
-    public Substation getModel() {
-        return model;
-    }
-
-    public void setModel(Substation model) {
-        this.model = model;
-    }
-
     @Override
     public Rectangle getBoundingBox() {
         throw new AssertionError("TODO");
@@ -6,6 +6,8 @@
  */
 package com.powsybl.gse.map;
 
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
 import com.github.davidmoten.rtree.RTree;
 import com.github.davidmoten.rtree.geometry.Geometries;
 import com.github.davidmoten.rtree.geometry.Geometry;
@@ -14,8 +16,7 @@ import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
-import java.util.Objects;
+import java.util.*;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
@@ -24,22 +25,48 @@ public final class SubstationGraphicIndex {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SubstationGraphicIndex.class);
 
+    /**
+     * Substations are clustered up to this zoom level.
+     */
+    static final int MAX_CLUSTER_ZOOM = 8;
+
     private final RTree<SubstationGraphic, Geometry> tree;
 
+    private final SubstationClusters[] clusters = new SubstationClusters[MAX_CLUSTER_ZOOM + 1];
+
     private SubstationGraphicIndex(RTree<SubstationGraphic, Geometry> tree) {
         this.tree = Objects.requireNonNull(tree);
+
+        // clustering is cheap compared to drawing all substations, so clusters of all levels are precomputed
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        List<SubstationGraphic> substations = new ArrayList<>(tree.size());
+        for (Entry<SubstationGraphic, Geometry> e : tree.entries().toBlocking().toIterable()) {
+            substations.add(e.value());
+        }
+        for (int zoom = 0; zoom <= MAX_CLUSTER_ZOOM; zoom++) {
+            clusters[zoom] = SubstationClusters.build(substations, zoom);
+        }
+        LOGGER.info("{} substations clustered up to zoom {} in {} ms ({} clusters at zoom {})", substations.size(),
+                MAX_CLUSTER_ZOOM, stopWatch.getTime(), clusters[MAX_CLUSTER_ZOOM].size(), MAX_CLUSTER_ZOOM);
+    }
+
+    private static Entry<SubstationGraphic, Geometry> createEntry(SubstationGraphic substation) {
+        Point point = Geometries.pointGeographic(substation.getPosition().getLon(),
+                                                 substation.getPosition().getLat());
+        return Entries.entry(substation, point);
     }
 
     public static SubstationGraphicIndex build(Collection<SubstationGraphic> substations) {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        RTree<SubstationGraphic, Geometry> tree = RTree.create();
+        // bulk loading (sort-tile-recursive packing) instead of one insertion per substation
+        List<Entry<SubstationGraphic, Geometry>> entries = new ArrayList<>(substations.size());
         for (SubstationGraphic substation : substations) {
-            Point point = Geometries.pointGeographic(substation.getPosition().getLon(),
-                    substation.getPosition().getLat());
-            tree = tree.add(substation, point);
+            entries.add(createEntry(substation));
         }
+        RTree<SubstationGraphic, Geometry> tree = RTree.create(entries);
 
         LOGGER.info("Substation R-tree built in {} ms", stopWatch.getTime());
 
@@ -49,4 +76,11 @@ public final class SubstationGraphicIndex {
     public RTree<SubstationGraphic, Geometry> getTree() {
         return tree;
     }
+
+    SubstationClusters getClusters(int zoom) {
+        if (zoom < 0 || zoom > MAX_CLUSTER_ZOOM) {
+            throw new IllegalArgumentException("Substations are not clustered at zoom " + zoom);
+        }
+        return clusters[zoom];
+    }
 }
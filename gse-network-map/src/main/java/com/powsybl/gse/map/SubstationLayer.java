@@ -6,62 +6,202 @@
  */
 package com.powsybl.gse.map;
 
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.geometry.Geometry;
+import com.github.davidmoten.rtree.geometry.Rectangle;
 import com.gluonhq.maps.MapView;
-import javafx.geometry.Point2D;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.shape.ArcType;
 import javafx.scene.text.Font;
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Objects;
+import java.util.*;
+import java.util.function.BooleanSupplier;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
  */
-public class SubstationLayer extends CanvasBasedLayer {
+public class SubstationLayer extends TiledLayer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SubstationLayer.class);
 
-    private final SubstationGraphicIndex substationIndex;
+    private static final int LABEL_ZOOM_THRESHOLD = 9;
 
-    public SubstationLayer(MapView mapView, SubstationGraphicIndex substationIndex) {
-        super(mapView);
+    private static final double LABEL_FONT_SIZE = 11;
+
+    private static final double LABEL_CHAR_WIDTH = 7;
+
+    private static final double LABEL_HEIGHT = 14;
+
+    private static final double LABEL_OFFSET = 10;
+
+    /**
+     * Screen space occupied by already drawn labels, bucketed by cells so that only labels around a new one are
+     * checked for overlap.
+     */
+    private static final class LabelGrid {
+
+        private static final double CELL_SIZE = 64;
+
+        private final Map<Long, List<double[]>> cells = new HashMap<>();
+
+        private static long getCellKey(int cellX, int cellY) {
+            return ((long) cellX << 32) | (cellY & 0xffffffffL);
+        }
+
+        private static boolean overlaps(double[] box, double x, double y, double width, double height) {
+            return x < box[0] + box[2] && box[0] < x + width && y < box[1] + box[3] && box[1] < y + height;
+        }
+
+        /**
+         * Place a label box if it does not overlap any already placed one.
+         *
+         * @return {@code true} if placed
+         */
+        private boolean place(double x, double y, double width, double height) {
+            int minCellX = (int) Math.floor(x / CELL_SIZE);
+            int maxCellX = (int) Math.floor((x + width) / CELL_SIZE);
+            int minCellY = (int) Math.floor(y / CELL_SIZE);
+            int maxCellY = (int) Math.floor((y + height) / CELL_SIZE);
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                    for (double[] box : cells.getOrDefault(getCellKey(cellX, cellY), Collections.emptyList())) {
+                        if (overlaps(box, x, y, width, height)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            double[] box = {x, y, width, height};
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                    cells.computeIfAbsent(getCellKey(cellX, cellY), k -> new ArrayList<>()).add(box);
+                }
+            }
+            return true;
+        }
+    }
+
+    private volatile SubstationGraphicIndex substationIndex;
+
+    public SubstationLayer(MapView mapView, SubstationGraphicIndex substationIndex, TileCache tileCache,
+                           CancellableGraphicTaskQueue taskQueue, NetworkMapMetrics metrics) {
+        super(mapView, "substations", tileCache, taskQueue, metrics);
         this.substationIndex = Objects.requireNonNull(substationIndex);
     }
 
+    /**
+     * Replace the index, with more substations while geographical data is loading.
+     */
+    void setSubstationIndex(SubstationGraphicIndex substationIndex) {
+        this.substationIndex = Objects.requireNonNull(substationIndex);
+        invalidate();
+    }
+
     @Override
-    protected void layoutLayer() {
-        super.layoutLayer();
+    protected Collection<Integer> getDrawOrders() {
+        return Collections.singletonList(0);
+    }
+
+    private static double getSymbolSize(int zoom) {
+        return zoom < 8 ? zoom / 2.0 : zoom;
+    }
+
+    private void renderClusters(PixelBuffer buffer, int zoom, Rectangle bounds, double scale, double translateX,
+                                double translateY, BooleanSupplier cancelled) {
+        long queryStart = System.nanoTime();
+        List<SubstationClusters.Cluster> clusters = substationIndex.getClusters(zoom)
+                .getClusters(WebMercator.projectLon(bounds.x1()), WebMercator.projectLat(bounds.y2()),
+                             WebMercator.projectLon(bounds.x2()), WebMercator.projectLat(bounds.y1()));
+        getMetrics().recordIndexQuery(getName(), System.nanoTime() - queryStart);
+
+        // cluster symbol grows with the number of substations, but stays inside its cell
+        double size = getSymbolSize(zoom);
+        for (SubstationClusters.Cluster cluster : clusters) {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            double radius = Math.min(SubstationClusters.CELL_SIZE / 2.0, size / 2 * (1 + Math.log10(cluster.getCount())));
+            buffer.setColor(cluster.getColor());
+            buffer.fillCircle(translateX + cluster.getX() * scale, translateY + cluster.getY() * scale, radius);
+        }
+
+        LOGGER.trace("{} substation clusters rendered", clusters.size());
+    }
+
+    private void renderSubstations(PixelBuffer buffer, int zoom, Rectangle bounds, double scale, double translateX,
+                                   double translateY, BooleanSupplier cancelled) {
+        long queryStart = System.nanoTime();
+        List<SubstationGraphic> substations = new ArrayList<>();
+        for (Entry<SubstationGraphic, Geometry> e : substationIndex.getTree().search(bounds).toBlocking().toIterable()) {
+            substations.add(e.value());
+        }
+        getMetrics().recordIndexQuery(getName(), System.nanoTime() - queryStart);
+
+        double size = getSymbolSize(zoom);
+        for (SubstationGraphic substation : substations) {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            double x = translateX + WebMercator.projectLon(substation.getPosition().getLon()) * scale;
+            double y = translateY + WebMercator.projectLat(substation.getPosition().getLat()) * scale;
+            buffer.setColor(substation.getColor());
+            buffer.fillCircle(x, y, size / 2);
+        }
+
+        LOGGER.trace("{} substations rendered", substations.size());
+    }
+
+    @Override
+    protected void renderTile(PixelBuffer buffer, TileKey key, Rectangle bounds, double scale, double translateX,
+                              double translateY, BooleanSupplier cancelled) {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
-        GraphicsContext gc = canvas.getGraphicsContext2D();
-        gc.setLineWidth(1);
-        gc.setFont(Font.font(11));
-
-        double zoom = baseMap.zoom().doubleValue();
-        double size = zoom < 8 ? zoom / 2 : zoom;
-
-        int[] drawnSubstations = new int[1];
-
-        substationIndex.getTree().search(getMapBounds())
-                .toBlocking()
-                .toIterable()
-                .forEach(e -> {
-                    SubstationGraphic substation = e.value();
-                    Point2D p = baseMap.getMapPoint(substation.getPosition().getLat(),
-                                                    substation.getPosition().getLon());
-                    gc.setFill(substation.getColor());
-                    gc.fillArc(p.getX() - size / 2, p.getY() - size / 2, size, size, 0, 360, ArcType.ROUND);
-                    if (zoom > 9) {
-                        gc.fillText(substation.getId(), p.getX() + 10, p.getY() + 10);
-                    }
-                    drawnSubstations[0]++;
-                });
+        int zoom = key.getZoom();
+        if (zoom <= SubstationGraphicIndex.MAX_CLUSTER_ZOOM) {
+            renderClusters(buffer, zoom, bounds, scale, translateX, translateY, cancelled);
+        } else {
+            renderSubstations(buffer, zoom, bounds, scale, translateX, translateY, cancelled);
+        }
+
+        LOGGER.trace("Substations rendered in {} ms for {}", stopWatch.getTime(), key);
+    }
+
+    @Override
+    protected void drawOverlay(GraphicsContext gc, double zoom) {
+        // text cannot be rendered in tiles, but labels are only shown when a few substations are visible
+        if (zoom <= LABEL_ZOOM_THRESHOLD) {
+            return;
+        }
+
+        gc.setFont(Font.font(LABEL_FONT_SIZE));
+
+        // sort visible substations so that the same labels win when the map is panned
+        List<SubstationGraphic> substations = new ArrayList<>();
+        for (Entry<SubstationGraphic, Geometry> e : substationIndex.getTree().search(getMapBounds()).toBlocking().toIterable()) {
+            substations.add(e.value());
+        }
+        substations.sort(Comparator.comparing(SubstationGraphic::getId));
+
+        double scale = WebMercator.getScale(zoom);
+        double translateX = baseMap.getTranslateX();
+        double translateY = baseMap.getTranslateY();
+        LabelGrid labelGrid = new LabelGrid();
+        int skippedLabels = 0;
+        for (SubstationGraphic substation : substations) {
+            double x = translateX + WebMercator.projectLon(substation.getPosition().getLon()) * scale + LABEL_OFFSET;
+            double y = translateY + WebMercator.projectLat(substation.getPosition().getLat()) * scale + LABEL_OFFSET;
+            // label box estimated from text length, measuring each text would cost more than drawing it
+            if (labelGrid.place(x, y - LABEL_FONT_SIZE, substation.getId().length() * LABEL_CHAR_WIDTH, LABEL_HEIGHT)) {
+                gc.setFill(substation.getColor());
+                gc.fillText(substation.getId(), x, y);
+            } else {
+                skippedLabels++;
+            }
+        }
 
-        stopWatch.stop();
-        LOGGER.info("{} substations drawn in {} ms ", drawnSubstations[0], stopWatch.getTime());
+        LOGGER.trace("{} overlapping substation labels skipped", skippedLabels);
     }
 }
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Columnar substation geographical data, either freshly parsed or memory mapped from the binary cache.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class SubstationTable {
+
+    static final class Builder {
+
+        private String[] ids = new String[1024];
+        private byte[] baseVoltages = new byte[1024];
+        private double[] lons = new double[1024];
+        private double[] lats = new double[1024];
+        private int size = 0;
+
+        Builder add(String id, RteOpenData.BaseVoltage baseVoltage, double lon, double lat) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                baseVoltages = Arrays.copyOf(baseVoltages, capacity);
+                lons = Arrays.copyOf(lons, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+            }
+            ids[size] = Objects.requireNonNull(id);
+            baseVoltages[size] = (byte) baseVoltage.ordinal();
+            lons[size] = lon;
+            lats[size] = lat;
+            size++;
+            return this;
+        }
+
+        Builder append(Builder other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.ids[i], RteOpenData.BaseVoltage.values()[other.baseVoltages[i]], other.lons[i], other.lats[i]);
+            }
+            return this;
+        }
+
+        SubstationTable build() {
+            return new SubstationTable(Arrays.copyOf(ids, size), Arrays.copyOf(baseVoltages, size),
+                                       DoubleBuffer.wrap(Arrays.copyOf(lons, size)), DoubleBuffer.wrap(Arrays.copyOf(lats, size)));
+        }
+    }
+
+    private final String[] ids;
+
+    private final byte[] baseVoltages;
+
+    private final DoubleBuffer lons;
+
+    private final DoubleBuffer lats;
+
+    SubstationTable(String[] ids, byte[] baseVoltages, DoubleBuffer lons, DoubleBuffer lats) {
+        this.ids = Objects.requireNonNull(ids);
+        this.baseVoltages = Objects.requireNonNull(baseVoltages);
+        this.lons = Objects.requireNonNull(lons);
+        this.lats = Objects.requireNonNull(lats);
+        if (baseVoltages.length != ids.length || lons.limit() != ids.length || lats.limit() != ids.length) {
+            throw new IllegalArgumentException("Inconsistent substation columns size");
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    String getId(int i) {
+        return ids[i];
+    }
+
+    RteOpenData.BaseVoltage getBaseVoltage(int i) {
+        return RteOpenData.BaseVoltage.values()[baseVoltages[i]];
+    }
+
+    double getLon(int i) {
+        return lons.get(i);
+    }
+
+    double getLat(int i) {
+        return lats.get(i);
+    }
+
+    Map<String, SubstationGraphic> toGraphics() {
+        Map<String, SubstationGraphic> substations = new HashMap<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            substations.put(ids[i], new SubstationGraphic(ids[i], getBaseVoltage(i).getColor(), new Coordinate(lons.get(i), lats.get(i))));
+        }
+        return substations;
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import javafx.scene.image.Image;
+
+/**
+ * A rendered raster tile. Tiles without anything drawn do not keep any image.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class Tile {
+
+    private static final long EMPTY_TILE_SIZE = 64;
+
+    private final Image image;
+
+    Tile(Image image) {
+        this.image = image;
+    }
+
+    boolean isEmpty() {
+        return image == null;
+    }
+
+    Image getImage() {
+        return image;
+    }
+
+    /**
+     * Approximate memory size in bytes.
+     */
+    long getSize() {
+        return image != null ? (long) image.getWidth() * (long) image.getHeight() * 4 : EMPTY_TILE_SIZE;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Rendered tiles of one map, shared by all its layers. Tiles are kept in a {@link TileStore}, shared with other maps
+ * of the application, which evicts least recently used tiles of any map when over its memory budget.
+ * Tiles are put by rendering threads and read by the JavaFX application thread.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class TileCache {
+
+    private final TileStore store;
+
+    // following fields are only accessed while holding the store lock
+
+    private int tileCount = 0;
+
+    private long size = 0;
+
+    TileCache() {
+        this(TileStore.getInstance());
+    }
+
+    TileCache(TileStore store) {
+        this.store = Objects.requireNonNull(store);
+    }
+
+    Tile get(TileKey key) {
+        return store.get(this, key);
+    }
+
+    void put(TileKey key, Tile tile) {
+        store.put(this, key, tile);
+    }
+
+    /**
+     * Remove tiles matching a predicate.
+     *
+     * @return number of removed tiles
+     */
+    int invalidate(Predicate<TileKey> predicate) {
+        return store.invalidate(this, predicate);
+    }
+
+    /**
+     * Remove all tiles, to be called when the map is closed so that its tiles do not wait for eviction.
+     */
+    void clear() {
+        store.invalidate(this, key -> true);
+    }
+
+    /**
+     * Called by the store, while holding its lock, when tiles of this cache are added or removed.
+     */
+    void update(int tileCountDelta, long sizeDelta) {
+        tileCount += tileCountDelta;
+        size += sizeDelta;
+    }
+
+    int getTileCount() {
+        synchronized (store) {
+            return tileCount;
+        }
+    }
+
+    long getSize() {
+        synchronized (store) {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.util.Objects;
+
+/**
+ * Identify a raster tile of a layer: Web Mercator tile coordinates (zoom, x, y) plus everything else that changes
+ * tile content.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class TileKey {
+
+    private final String layer;
+
+    private final int drawOrder;
+
+    private final int zoom;
+
+    private final int x;
+
+    private final int y;
+
+    private final boolean showPylons;
+
+    TileKey(String layer, int drawOrder, int zoom, int x, int y, boolean showPylons) {
+        this.layer = Objects.requireNonNull(layer);
+        this.drawOrder = drawOrder;
+        this.zoom = zoom;
+        this.x = x;
+        this.y = y;
+        this.showPylons = showPylons;
+    }
+
+    String getLayer() {
+        return layer;
+    }
+
+    int getDrawOrder() {
+        return drawOrder;
+    }
+
+    int getZoom() {
+        return zoom;
+    }
+
+    int getX() {
+        return x;
+    }
+
+    int getY() {
+        return y;
+    }
+
+    boolean isShowPylons() {
+        return showPylons;
+    }
+
+    /**
+     * Same tile at previous zoom level, which covers this one.
+     */
+    TileKey getParent() {
+        return new TileKey(layer, drawOrder, zoom - 1, x / 2, y / 2, showPylons);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(layer, drawOrder, zoom, x, y, showPylons);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof TileKey) {
+            TileKey other = (TileKey) obj;
+            return layer.equals(other.layer) && drawOrder == other.drawOrder && zoom == other.zoom
+                    && x == other.x && y == other.y && showPylons == other.showPylons;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "TileKey(layer=" + layer + ", drawOrder=" + drawOrder + ", zoom=" + zoom + ", x=" + x + ", y=" + y
+                + ", showPylons=" + showPylons + ")";
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Least recently used store of the rendered tiles of all maps of the application, bounded by a single memory budget,
+ * so that opening more maps does not multiply memory used by tiles. Tiles are stored per {@link TileCache}, as their
+ * content depends on case data like line loadings.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class TileStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TileStore.class);
+
+    private static final long DEFAULT_MAX_SIZE = Math.min(256L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 8);
+
+    private static final TileStore INSTANCE = new TileStore(DEFAULT_MAX_SIZE);
+
+    private static final class Key {
+
+        private final TileCache cache;
+
+        private final TileKey tileKey;
+
+        private Key(TileCache cache, TileKey tileKey) {
+            this.cache = Objects.requireNonNull(cache);
+            this.tileKey = Objects.requireNonNull(tileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(cache) * 31 + tileKey.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return cache == other.cache && tileKey.equals(other.tileKey);
+            }
+            return false;
+        }
+    }
+
+    private final long maxSize;
+
+    private final Map<Key, Tile> tiles = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size = 0;
+
+    TileStore(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Invalid tile store size " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    static TileStore getInstance() {
+        return INSTANCE;
+    }
+
+    synchronized Tile get(TileCache cache, TileKey key) {
+        return tiles.get(new Key(cache, key));
+    }
+
+    synchronized void put(TileCache cache, TileKey key, Tile tile) {
+        Objects.requireNonNull(tile);
+        Tile old = tiles.put(new Key(cache, key), tile);
+        if (old != null) {
+            remove(cache, old);
+        }
+        add(cache, tile);
+
+        // evict least recently used tiles, whatever the map they belong to
+        int evicted = 0;
+        Iterator<Map.Entry<Key, Tile>> it = tiles.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Map.Entry<Key, Tile> e = it.next();
+            if (e.getValue() != tile) {
+                remove(e.getKey().cache, e.getValue());
+                it.remove();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            LOGGER.trace("{} tiles evicted", evicted);
+        }
+    }
+
+    /**
+     * Remove tiles of a cache matching a predicate.
+     *
+     * @return number of removed tiles
+     */
+    synchronized int invalidate(TileCache cache, Predicate<TileKey> predicate) {
+        Objects.requireNonNull(cache);
+        Objects.requireNonNull(predicate);
+        int count = 0;
+        Iterator<Map.Entry<Key, Tile>> it = tiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Tile> e = it.next();
+            if (e.getKey().cache == cache && predicate.test(e.getKey().tileKey)) {
+                remove(cache, e.getValue());
+                it.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void add(TileCache cache, Tile tile) {
+        size += tile.getSize();
+        cache.update(1, tile.getSize());
+    }
+
+    private void remove(TileCache cache, Tile tile) {
+        size -= tile.getSize();
+        cache.update(-1, -tile.getSize());
+    }
+
+    synchronized int getTileCount() {
+        return tiles.size();
+    }
+
+    synchronized long getSize() {
+        return size;
+    }
+
+    long getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import com.gluonhq.maps.MapView;
+import javafx.scene.canvas.GraphicsContext;
+import org.apache.commons.lang3.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A layer made of 256 pixels raster tiles, one set of tiles per draw order. Tiles are rendered by background workers
+ * with a {@link PixelBuffer}, draw orders in parallel, and kept in a {@link TileCache}, so that laying out the layer
+ * only consists in compositing cached tile images in draw order. Tiles missing from the cache are requested and the
+ * layer is laid out again once they are rendered.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+abstract class TiledLayer extends CanvasBasedLayer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TiledLayer.class);
+
+    static final int TILE_SIZE = 256;
+
+    private static final int MAX_TILE_ZOOM = 20;
+
+    /**
+     * Symbols near a tile border overlap the next tile, so features are searched with a margin around tile bounds.
+     */
+    private static final int TILE_MARGIN = 16;
+
+    private final String name;
+
+    private final TileCache tileCache;
+
+    private final CancellableGraphicTaskQueue taskQueue;
+
+    private final NetworkMapMetrics metrics;
+
+    /**
+     * Tiles already requested, with the task queue generation of the request.
+     */
+    private final Map<TileKey, Long> requestedTiles = new ConcurrentHashMap<>();
+
+    private final Runnable relayout = this::markDirty;
+
+    protected TiledLayer(MapView mapView, String name, TileCache tileCache, CancellableGraphicTaskQueue taskQueue,
+                         NetworkMapMetrics metrics) {
+        super(mapView);
+        this.name = Objects.requireNonNull(name);
+        this.tileCache = Objects.requireNonNull(tileCache);
+        this.taskQueue = Objects.requireNonNull(taskQueue);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    protected String getName() {
+        return name;
+    }
+
+    protected NetworkMapMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Draw orders of the layer, in drawing order.
+     */
+    protected abstract Collection<Integer> getDrawOrders();
+
+    /**
+     * Called from the JavaFX application thread to get the pylon display part of tile keys.
+     */
+    protected boolean isShowPylons(int tileZoom) {
+        return false;
+    }
+
+    /**
+     * Render a tile, called from a background thread. A feature at normalized Web Mercator coordinates (x, y) has to
+     * be drawn at pixel ({@code translateX + x * scale}, {@code translateY + y * scale}).
+     *
+     * @param bounds geographic bounds of the tile, including a margin
+     * @param cancelled to check in drawing loops, rendering should stop as soon as it returns {@code true}
+     */
+    protected abstract void renderTile(PixelBuffer buffer, TileKey key, Rectangle bounds, double scale,
+                                       double translateX, double translateY, BooleanSupplier cancelled);
+
+    /**
+     * Draw on top of tiles anything that cannot be rendered in background, called from the JavaFX application thread.
+     */
+    protected void drawOverlay(GraphicsContext gc, double zoom) {
+        // nothing by default
+    }
+
+    private static int clamp(double value, int max) {
+        return (int) Math.max(0, Math.min(max, Math.floor(value)));
+    }
+
+    /**
+     * Geographic bounds of a tile, including the margin in which features are searched.
+     */
+    static Rectangle getTileBounds(TileKey key) {
+        int tileCount = 1 << key.getZoom();
+        double margin = TILE_MARGIN / WebMercator.getScale(key.getZoom());
+        double x1 = Math.max(0, (double) key.getX() / tileCount - margin);
+        double y1 = Math.max(0, (double) key.getY() / tileCount - margin);
+        double x2 = Math.min(1, (double) (key.getX() + 1) / tileCount + margin);
+        double y2 = Math.min(1, (double) (key.getY() + 1) / tileCount + margin);
+        return Geometries.rectangleGeographic(WebMercator.unprojectX(x1), WebMercator.unprojectY(y2),
+                                              WebMercator.unprojectX(x2), WebMercator.unprojectY(y1));
+    }
+
+    /**
+     * @return rendered tile or {@code null} if cancelled
+     */
+    private Tile renderTile(TileKey key, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        double scale = WebMercator.getScale(key.getZoom());
+        Rectangle bounds = getTileBounds(key);
+
+        PixelBuffer buffer = new PixelBuffer(TILE_SIZE, TILE_SIZE);
+        renderTile(buffer, key, bounds, scale, -key.getX() * (double) TILE_SIZE, -key.getY() * (double) TILE_SIZE, cancelled);
+        if (cancelled.getAsBoolean()) {
+            metrics.recordTileCancellation();
+            return null; // incomplete
+        }
+        Tile tile = new Tile(buffer.isEmpty() ? null : buffer.toImage());
+        metrics.recordTileRendering(name, System.nanoTime() - start);
+        return tile;
+    }
+
+    /**
+     * Render tiles of one draw order, called from a worker thread. Rendering stops as soon as the task queue has been
+     * reset by a view change, even in the middle of a tile, remaining tiles will be requested again if still visible.
+     */
+    private void renderTiles(List<TileKey> keys, long generation, BooleanSupplier cancelled) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        int renderedTiles = 0;
+        try {
+            for (TileKey key : keys) {
+                if (tileCache.get(key) == null) {
+                    Tile tile = renderTile(key, cancelled);
+                    if (tile == null) {
+                        LOGGER.trace("Stale rendering of layer {} cancelled", name);
+                        return;
+                    }
+                    tileCache.put(key, tile);
+                    renderedTiles++;
+                }
+            }
+        } finally {
+            keys.forEach(key -> requestedTiles.remove(key, generation));
+        }
+
+        LOGGER.trace("{} tiles of layer {} rendered in {} ms", renderedTiles, name, stopWatch.getTime());
+
+        // only composition of rendered tiles is done on JavaFX application thread
+        if (renderedTiles > 0) {
+            taskQueue.runLater(generation, relayout);
+        }
+    }
+
+    /**
+     * Remove from the cache all tiles of this layer, to be called when the style of all features changes.
+     */
+    protected void invalidate() {
+        int count = tileCache.invalidate(key -> key.getLayer().equals(name));
+        LOGGER.debug("{} tiles of layer {} invalidated", count, name);
+    }
+
+    /**
+     * Remove from the cache tiles of one draw order of this layer.
+     */
+    protected void invalidate(int drawOrder) {
+        int count = tileCache.invalidate(key -> key.getLayer().equals(name) && key.getDrawOrder() == drawOrder);
+        LOGGER.debug("{} tiles of layer {} and draw order {} invalidated", count, name, drawOrder);
+    }
+
+    /**
+     * Remove from the cache tiles of this layer intersecting one of the dirty regions, so that only these tiles are
+     * rendered again.
+     */
+    protected void invalidate(Collection<Rectangle> dirtyRegions) {
+        if (dirtyRegions.isEmpty()) {
+            return;
+        }
+        List<Entry<Rectangle, Rectangle>> entries = new ArrayList<>(dirtyRegions.size());
+        for (Rectangle dirtyRegion : dirtyRegions) {
+            entries.add(Entries.entry(dirtyRegion, dirtyRegion));
+        }
+        RTree<Rectangle, Rectangle> dirtyTree = RTree.create(entries);
+        int count = tileCache.invalidate(key -> key.getLayer().equals(name)
+                && dirtyTree.search(getTileBounds(key)).toBlocking().toIterable().iterator().hasNext());
+        LOGGER.debug("{} tiles of layer {} invalidated by {} dirty regions", count, name, dirtyRegions.size());
+    }
+
+    private void requestTiles(List<TileKey> keys) {
+        long generation = taskQueue.getGeneration();
+        List<TileKey> newKeys = new ArrayList<>(keys.size());
+        for (TileKey key : keys) {
+            // tiles requested before a queue reset may have been dropped, so request them again
+            Long requestGeneration = requestedTiles.put(key, generation);
+            if (requestGeneration == null || requestGeneration != generation) {
+                newKeys.add(key);
+            }
+        }
+        if (!newKeys.isEmpty()) {
+            taskQueue.addTask(cancelled -> renderTiles(newKeys, generation, cancelled));
+        }
+    }
+
+    @Override
+    protected void layoutLayer() {
+        super.layoutLayer();
+
+        long start = System.nanoTime();
+
+        double zoom = baseMap.zoom().getValue();
+        int tileZoom = Math.max(0, Math.min(MAX_TILE_ZOOM, (int) Math.round(zoom)));
+        int maxTile = (1 << tileZoom) - 1;
+        double tileSize = WebMercator.getScale(zoom) / (1 << tileZoom); // on screen, tiles are scaled for fractional zoom
+        double translateX = baseMap.getTranslateX();
+        double translateY = baseMap.getTranslateY();
+        int minTileX = clamp(-translateX / tileSize, maxTile);
+        int maxTileX = clamp((canvas.getWidth() - translateX) / tileSize, maxTile);
+        int minTileY = clamp(-translateY / tileSize, maxTile);
+        int maxTileY = clamp((canvas.getHeight() - translateY) / tileSize, maxTile);
+        boolean showPylons = isShowPylons(tileZoom);
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        int drawnTiles = 0;
+        int missingTiles = 0;
+        for (int drawOrder : getDrawOrders()) {
+            List<TileKey> missingKeys = new ArrayList<>();
+            for (int x = minTileX; x <= maxTileX; x++) {
+                for (int y = minTileY; y <= maxTileY; y++) {
+                    TileKey key = new TileKey(name, drawOrder, tileZoom, x, y, showPylons);
+                    double screenX = translateX + x * tileSize;
+                    double screenY = translateY + y * tileSize;
+                    Tile tile = tileCache.get(key);
+                    if (tile != null) {
+                        if (!tile.isEmpty()) {
+                            gc.drawImage(tile.getImage(), screenX, screenY, tileSize, tileSize);
+                            drawnTiles++;
+                        }
+                    } else {
+                        missingKeys.add(key);
+                        // until rendered, show the enlarged quarter of previous zoom level tile if available
+                        Tile parentTile = tileZoom > 0 ? tileCache.get(key.getParent()) : null;
+                        if (parentTile != null && !parentTile.isEmpty()) {
+                            double half = TILE_SIZE / 2.0;
+                            gc.drawImage(parentTile.getImage(), (x % 2) * half, (y % 2) * half, half, half,
+                                         screenX, screenY, tileSize, tileSize);
+                        }
+                    }
+                }
+            }
+            if (!missingKeys.isEmpty()) {
+                requestTiles(missingKeys);
+                missingTiles += missingKeys.size();
+            }
+        }
+
+        drawOverlay(gc, zoom);
+
+        long time = System.nanoTime() - start;
+        metrics.recordLayout(name, time);
+        LOGGER.debug("{} tiles of layer {} drawn ({} missing) in {} ms at zoom {}", drawnTiles, name, missingTiles,
+                time / 1000000, zoom);
+    }
+}
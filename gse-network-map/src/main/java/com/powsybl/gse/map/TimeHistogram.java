@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations, with power of 2 millisecond buckets: bucket {@code i} counts durations up to
+ * {@code 2^i} ms, the last one counts all longer durations.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class TimeHistogram {
+
+    private static final int BUCKET_COUNT = 12; // up to 1 s, then overflow
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT + 1);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalTime = new LongAdder();
+
+    private final AtomicLong maxTime = new AtomicLong(0);
+
+    static long getBucketUpperBound(int bucket) {
+        return bucket < BUCKET_COUNT ? 1L << bucket : Long.MAX_VALUE;
+    }
+
+    void record(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = 0;
+        while (bucket < BUCKET_COUNT && micros > getBucketUpperBound(bucket) * 1000) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        count.increment();
+        totalTime.add(nanos);
+        maxTime.accumulateAndGet(nanos, Math::max);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    double getMean() {
+        long n = count.sum();
+        return n > 0 ? totalTime.sum() / 1e6 / n : 0;
+    }
+
+    double getMax() {
+        return maxTime.get() / 1e6;
+    }
+
+    /**
+     * Upper bound in ms of the bucket containing the given quantile, or {@link Long#MAX_VALUE} if in the overflow one.
+     */
+    long getQuantileUpperBound(double quantile) {
+        long n = 0;
+        long[] snapshot = getCounts();
+        for (long c : snapshot) {
+            n += c;
+        }
+        long rank = (long) Math.ceil(quantile * n);
+        long cumulated = 0;
+        for (int bucket = 0; bucket < snapshot.length; bucket++) {
+            cumulated += snapshot[bucket];
+            if (cumulated >= rank && cumulated > 0) {
+                return getBucketUpperBound(bucket);
+            }
+        }
+        return 0;
+    }
+
+    long[] getCounts() {
+        long[] snapshot = new long[counts.length()];
+        for (int bucket = 0; bucket < snapshot.length; bucket++) {
+            snapshot[bucket] = counts.get(bucket);
+        }
+        return snapshot;
+    }
+
+    void reset() {
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.reset();
+        totalTime.reset();
+        maxTime.set(0);
+    }
+
+    private static String formatBound(long bound) {
+        return bound == Long.MAX_VALUE ? ">" + getBucketUpperBound(BUCKET_COUNT - 1) : "<=" + bound;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1fms p50%sms p95%sms max=%.1fms", getCount(), getMean(),
+                formatBound(getQuantileUpperBound(0.5)), formatBound(getQuantileUpperBound(0.95)), getMax());
+    }
+}
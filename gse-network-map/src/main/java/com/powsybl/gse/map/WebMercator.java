@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+/**
+ * Web Mercator projection, as used by map tiles.
+ * <p>
+ * Projected coordinates are normalized in [0, 1] and do not depend on zoom level, a map pixel position is obtained
+ * by multiplying them by {@link #getScale(double)} and adding the base map translation.
+ *
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+final class WebMercator {
+
+    private static final int TILE_SIZE = 256;
+
+    private WebMercator() {
+    }
+
+    static double getScale(double zoom) {
+        return TILE_SIZE * Math.pow(2, zoom);
+    }
+
+    static double projectLon(double lon) {
+        return (lon + 180) / 360;
+    }
+
+    static double projectLat(double lat) {
+        double latRad = Math.toRadians(lat);
+        return (1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2;
+    }
+
+    static double unprojectX(double x) {
+        return x * 360 - 180;
+    }
+
+    static double unprojectY(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+}
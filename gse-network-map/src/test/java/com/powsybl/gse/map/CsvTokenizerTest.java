@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public class CsvTokenizerTest {
+
+    private static CsvTokenizer tokenize(String csv) {
+        return new CsvTokenizer(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), ';');
+    }
+
+    /**
+     * Check that a field is parsed to the same bits as {@link Double#parseDouble(String)}, or fails the same way.
+     */
+    private static void assertParsedLikeJdk(String text) {
+        Double expected;
+        try {
+            expected = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            expected = null;
+        }
+        CsvTokenizer tokenizer = tokenize("a;" + text + ";b\n");
+        assertTrue(tokenizer.nextRow());
+        assertEquals(3, tokenizer.getFieldCount());
+        try {
+            double actual = tokenizer.getDouble(1);
+            assertNotNull("'" + text + "' should not be parsed", expected);
+            assertEquals("'" + text + "'", Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+        } catch (NumberFormatException e) {
+            assertNull("'" + text + "' should be parsed", expected);
+        }
+    }
+
+    @Test
+    public void testSigns() {
+        for (String text : new String[] {"0", "-0", "+0", "-0.0", "1.5", "-1.5", "+1.5", "-.5", "+5.", "--1", "+-1", "-"}) {
+            assertParsedLikeJdk(text);
+        }
+    }
+
+    @Test
+    public void testExponents() {
+        for (String text : new String[] {"1e5", "1E-5", "-2.5e+3", "1e308", "1e309", "-1e309", "4.9e-324", "1e-400",
+                                         "1e", "e5", "NaN", "Infinity", "-Infinity", "0x1p3", "1d", "2f"}) {
+            assertParsedLikeJdk(text);
+        }
+    }
+
+    @Test
+    public void testSignificantDigits() {
+        for (String text : new String[] {"9007199254740992", "9007199254740993", "-9007199254740993", "12345678901234567890",
+                                         "3.141592653589793238", "0.1234567890123456789", "48.858370000000001",
+                                         "2.2250738585072014", "0.0000000000000000000001", "0.00000000000000000000001",
+                                         "1.0000000000000000000000000000001", "179769313486231570000000000000000000000"}) {
+            assertParsedLikeJdk(text);
+        }
+    }
+
+    @Test
+    public void testMalformed() {
+        // quotes are not interpreted, so quoted numbers are rejected like by Double.parseDouble
+        for (String text : new String[] {"", ".", "1.2.3", " 1.5", "1.5 ", "\"1.5\"", "'2'", "1,5", "abc"}) {
+            assertParsedLikeJdk(text);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10);
+            assertParsedLikeJdk(Double.toString(value));
+            assertParsedLikeJdk(String.format(Locale.ROOT, "%." + random.nextInt(20) + "f", value));
+        }
+    }
+
+    @Test
+    public void testRows() {
+        CsvTokenizer tokenizer = tokenize("id;lon;lat\r\n\nS1;2.5;48.1\r\nS2;;-1\n");
+        assertTrue(tokenizer.nextRow());
+        assertEquals("lat", tokenizer.getString(2));
+        assertTrue(tokenizer.nextRow());
+        assertEquals("S1", tokenizer.getString(0));
+        assertEquals(48.1, tokenizer.getDouble(2), 0);
+        assertTrue(tokenizer.nextRow());
+        assertTrue(tokenizer.isEmpty(1));
+        assertEquals(-1, tokenizer.getDouble(2), 0);
+        assertFalse(tokenizer.nextRow());
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import com.github.davidmoten.rtree.geometry.Rectangle;
+import javafx.scene.paint.Color;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public class LineGraphicTest {
+
+    // branches store projected pylons, so coordinates are compared at a 1e-9 degree precision
+    private static Coordinate round(double lon, double lat) {
+        return new Coordinate(Math.round(lon * 1e9) / 1e9, Math.round(lat * 1e9) / 1e9);
+    }
+
+    private static List<Coordinate> getCoordinates(BranchGraphic branch) {
+        List<Coordinate> coordinates = new ArrayList<>(branch.getPylonCount());
+        for (int i = 0; i < branch.getPylonCount(); i++) {
+            coordinates.add(round(branch.getLon(i), branch.getLat(i)));
+        }
+        return coordinates;
+    }
+
+    @Test
+    public void test1() {
+        LineGraphic line = new LineGraphic("l1", 0, Color.RED);
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 1), new Coordinate(1, 2), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 2), new Coordinate(1, 3), line));
+        line.updateBranches();
+        List<BranchGraphic> branches = line.getBranches();
+        assertEquals(1, branches.size());
+        BranchGraphic branch = branches.get(0);
+        assertEquals(Arrays.asList(new Coordinate(1, 1), new Coordinate(1, 2), new Coordinate(1, 3)),
+                getCoordinates(branch));
+    }
+
+    @Test
+    public void test2() {
+        LineGraphic line = new LineGraphic("l1", 0, Color.RED);
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 1), new Coordinate(1, 2), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 2), new Coordinate(1, 3), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 4), new Coordinate(1, 5), line));
+        line.updateBranches();
+        List<BranchGraphic> branches = line.getBranches();
+        assertEquals(2, branches.size());
+        BranchGraphic branch1 = branches.get(0);
+        BranchGraphic branch2 = branches.get(1);
+        assertEquals(Arrays.asList(new Coordinate(1, 1), new Coordinate(1, 2), new Coordinate(1, 3)),
+                getCoordinates(branch1));
+        assertEquals(Arrays.asList(new Coordinate(1, 4), new Coordinate(1, 5)),
+                getCoordinates(branch2));
+    }
+
+    @Test
+    public void test3() {
+        LineGraphic line = new LineGraphic("l1", 0, Color.RED);
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 1), new Coordinate(1, 2), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 2), new Coordinate(1, 3), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 2), new Coordinate(1, 4), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 4), new Coordinate(1, 5), line));
+        line.updateBranches();
+        List<BranchGraphic> branches = line.getBranches();
+        assertEquals(2, branches.size());
+        BranchGraphic branch1 = branches.get(0);
+        BranchGraphic branch2 = branches.get(1);
+        assertEquals(Arrays.asList(new Coordinate(1, 2), new Coordinate(1, 4), new Coordinate(1, 5)),
+                getCoordinates(branch1));
+        assertEquals(Arrays.asList(new Coordinate(1, 1), new Coordinate(1, 2), new Coordinate(1, 3)),
+                getCoordinates(branch2));
+    }
+
+    @Test
+    @Ignore
+    public void test4() {
+        LineGraphic line = new LineGraphic("l1", 0, Color.RED);
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 1), new Coordinate(1, 2), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 2), new Coordinate(1, 3), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 3), new Coordinate(1, 4), line));
+        line.getSegments().add(new SegmentGraphic(new Coordinate(1, 4), new Coordinate(1, 2), line));
+        line.updateBranches();
+        List<BranchGraphic> branches = line.getBranches();
+        assertEquals(1, branches.size());
+        BranchGraphic branch = branches.get(0);
+        assertEquals(Arrays.asList(new Coordinate(1, 1), new Coordinate(1, 2), new Coordinate(1, 3), new Coordinate(1, 4), new Coordinate(1, 2)),
+                getCoordinates(branch));
+    }
+
+    @Test
+    public void testBoundingBox() {
+        LineGraphic line = new LineGraphic("l1", 0, Color.RED);
+        BranchGraphic branch = new BranchGraphic(new double[] {-1.5, -2, -0.5}, new double[] {-3, -1, -2}, line);
+        Rectangle box = branch.getBoundingBox();
+        assertEquals(-2, box.x1(), 1e-9);
+        assertEquals(-3, box.y1(), 1e-9);
+        assertEquals(-0.5, box.x2(), 1e-9);
+        assertEquals(-1, box.y2(), 1e-9);
+    }
+
+    /**
+     * Previous recursive implementation, used as a reference.
+     */
+    private static final class RecursiveBranchBuilder {
+
+        private final Map<Coordinate, List<Coordinate>> neighbors = new HashMap<>();
+
+        private final Set<Coordinate> remaining = new HashSet<>();
+
+        private final List<List<Coordinate>> branches = new ArrayList<>();
+
+        private RecursiveBranchBuilder(List<SegmentGraphic> segments) {
+            for (SegmentGraphic segment : segments) {
+                neighbors.computeIfAbsent(segment.getCoordinate1(), k -> new ArrayList<>()).add(segment.getCoordinate2());
+                neighbors.computeIfAbsent(segment.getCoordinate2(), k -> new ArrayList<>()).add(segment.getCoordinate1());
+            }
+            remaining.addAll(neighbors.keySet());
+        }
+
+        private Stream<Coordinate> getNeighborsStream(Coordinate pylon) {
+            return neighbors.get(pylon).stream().filter(remaining::contains);
+        }
+
+        private void traverse(Coordinate pylon, List<Coordinate> pylons) {
+            pylons.add(pylon);
+            remaining.remove(pylon);
+            getNeighborsStream(pylon).findFirst().ifPresent(next -> traverse(next, pylons));
+            getNeighborsStream(pylon).forEach(next -> {
+                List<Coordinate> nextPylons = new ArrayList<>(1);
+                nextPylons.add(pylon);
+                traverse(next, nextPylons);
+                branches.add(nextPylons);
+            });
+        }
+
+        private List<List<Coordinate>> build() {
+            Comparator<Coordinate> comparator = Comparator.comparingDouble(Coordinate::getLon).thenComparingDouble(Coordinate::getLat);
+            while (!remaining.isEmpty()) {
+                Coordinate pylon = remaining.stream()
+                        .filter(p -> getNeighborsStream(p).count() != 2)
+                        .min(comparator)
+                        .orElseGet(() -> remaining.stream().min(comparator).orElseThrow(AssertionError::new));
+                List<Coordinate> pylons = new ArrayList<>();
+                traverse(pylon, pylons);
+                branches.add(pylons);
+            }
+            return branches;
+        }
+    }
+
+    @Test
+    public void testLongLineEquivalence() throws InterruptedException {
+        // a 100k pylons line made of a long trunk with spurs and loops, segments in random order and direction
+        int pylonCount = 100000;
+        Random random = new Random(42);
+        LineGraphic line = new LineGraphic("l1", 0, Color.RED);
+        Coordinate[] pylons = new Coordinate[pylonCount];
+        for (int i = 0; i < pylonCount; i++) {
+            pylons[i] = new Coordinate((i % 1000) * 0.01, (i / 1000) * 0.01);
+        }
+        List<int[]> links = new ArrayList<>();
+        int trunkLength = 80000;
+        for (int i = 1; i < trunkLength; i++) {
+            links.add(new int[] {i - 1, i});
+        }
+        int next = trunkLength;
+        while (next < pylonCount - 100) {
+            int from = random.nextInt(next);
+            int spurLength = 1 + random.nextInt(200);
+            for (int i = 0; i < spurLength && next < pylonCount - 100; i++) {
+                links.add(new int[] {from, next});
+                from = next++;
+            }
+            if (random.nextInt(10) == 0) {
+                links.add(new int[] {from, random.nextInt(next)}); // a loop
+            }
+        }
+        int ringStart = next;
+        for (; next < pylonCount; next++) {
+            links.add(new int[] {next, next + 1 < pylonCount ? next + 1 : ringStart}); // a separated ring
+        }
+        Collections.shuffle(links, random);
+        for (int[] link : links) {
+            int a = random.nextBoolean() ? link[0] : link[1];
+            int b = a == link[0] ? link[1] : link[0];
+            line.getSegments().add(new SegmentGraphic(pylons[a], pylons[b], line));
+        }
+
+        // recursive reference needs a big stack
+        AtomicReference<List<List<Coordinate>>> expected = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> expected.set(new RecursiveBranchBuilder(line.getSegments()).build()), "reference", 1L << 30);
+        thread.start();
+        thread.join();
+
+        line.updateBranches();
+        List<List<Coordinate>> actual = line.getBranches().stream()
+                .map(LineGraphicTest::getCoordinates)
+                .collect(Collectors.toList());
+        List<List<Coordinate>> roundedExpected = expected.get().stream()
+                .map(branch -> branch.stream().map(c -> round(c.getLon(), c.getLat())).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        assertEquals(roundedExpected.size(), actual.size());
+        assertEquals(roundedExpected, actual);
+    }
+}
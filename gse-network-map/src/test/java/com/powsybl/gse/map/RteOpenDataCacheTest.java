@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2018, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.gse.map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.DoubleBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
+ */
+public class RteOpenDataCacheTest {
+
+    private Path dir;
+
+    private Path source;
+
+    private List<Path> sources;
+
+    private Path cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("gse-cache-test");
+        source = dir.resolve("source.csv");
+        Files.write(source, "id;lon;lat\n".getBytes(StandardCharsets.UTF_8));
+        sources = Collections.singletonList(source);
+        cacheFile = dir.resolve("cache.bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static SubstationTable createSubstations() {
+        return new SubstationTable(new String[] {"S1", "S\u00e92", ""},
+                                   new byte[] {(byte) RteOpenData.BaseVoltage.VL_400_KV.ordinal(), (byte) RteOpenData.BaseVoltage.VL_63_KV.ordinal(),
+                                               (byte) RteOpenData.BaseVoltage.VL_HORS_TENSION.ordinal()},
+                                   DoubleBuffer.wrap(new double[] {2.35, -1.5, 0}),
+                                   DoubleBuffer.wrap(new double[] {48.85, 43.6, -0.0}));
+    }
+
+    @Test
+    public void testSubstationsRoundTrip() {
+        SubstationTable table = createSubstations();
+        RteOpenDataCache.writeSubstations(cacheFile, sources, table);
+        SubstationTable cached = RteOpenDataCache.readSubstations(cacheFile, sources);
+        assertNotNull(cached);
+        assertEquals(table.size(), cached.size());
+        for (int i = 0; i < table.size(); i++) {
+            assertEquals(table.getId(i), cached.getId(i));
+            assertEquals(table.getBaseVoltage(i), cached.getBaseVoltage(i));
+            assertEquals(Double.doubleToLongBits(table.getLon(i)), Double.doubleToLongBits(cached.getLon(i)));
+            assertEquals(Double.doubleToLongBits(table.getLat(i)), Double.doubleToLongBits(cached.getLat(i)));
+        }
+    }
+
+    @Test
+    public void testLinesRoundTrip() {
+        LineTable table = new LineTable(new String[] {"L1", "L2"},
+                                        new byte[] {(byte) RteOpenData.BaseVoltage.VL_225_KV.ordinal(), (byte) RteOpenData.BaseVoltage.VL_90_KV.ordinal()},
+                                        new int[] {0, 2, 3},
+                                        DoubleBuffer.wrap(new double[] {1, 1.1, 5}), DoubleBuffer.wrap(new double[] {45, 45.1, 46}),
+                                        DoubleBuffer.wrap(new double[] {1.1, 1.2, 5.5}), DoubleBuffer.wrap(new double[] {45.1, 45.2, 46.5}));
+        RteOpenDataCache.writeLines(cacheFile, sources, table);
+        LineTable cached = RteOpenDataCache.readLines(cacheFile, sources);
+        assertNotNull(cached);
+        assertEquals(table.size(), cached.size());
+        assertEquals(table.getSegmentCount(), cached.getSegmentCount());
+        for (int l = 0; l < table.size(); l++) {
+            assertEquals(table.getId(l), cached.getId(l));
+            assertEquals(table.getBaseVoltage(l), cached.getBaseVoltage(l));
+            assertEquals(table.getFirstSegment(l), cached.getFirstSegment(l));
+            assertEquals(table.getLastSegment(l), cached.getLastSegment(l));
+        }
+        for (int s = 0; s < table.getSegmentCount(); s++) {
+            assertEquals(table.getLon1(s), cached.getLon1(s), 0);
+            assertEquals(table.getLat1(s), cached.getLat1(s), 0);
+            assertEquals(table.getLon2(s), cached.getLon2(s), 0);
+            assertEquals(table.getLat2(s), cached.getLat2(s), 0);
+        }
+    }
+
+    @Test
+    public void testMissingCache() {
+        assertNull(RteOpenDataCache.readSubstations(cacheFile, sources));
+    }
+
+    @Test
+    public void testStaleModificationTime() throws IOException {
+        RteOpenDataCache.writeSubstations(cacheFile, sources, createSubstations());
+        assertNotNull(RteOpenDataCache.readSubstations(cacheFile, sources));
+
+        // same size but modified since cache has been written
+        FileTime lastModified = Files.getLastModifiedTime(source);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(lastModified.toMillis() + 60000));
+        assertNull(RteOpenDataCache.readSubstations(cacheFile, sources));
+
+        // cache is used again once written for the new source
+        RteOpenDataCache.writeSubstations(cacheFile, sources, createSubstations());
+        assertNotNull(RteOpenDataCache.readSubstations(cacheFile, sources));
+    }
+
+    @Test
+    public void testStaleSize() throws IOException {
+        RteOpenDataCache.writeSubstations(cacheFile, sources, createSubstations());
+        FileTime lastModified = Files.getLastModifiedTime(source);
+        Files.write(source, "S1;2.35;48.85\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(source, lastModified);
+        assertNull(RteOpenDataCache.readSubstations(cacheFile, sources));
+    }
+
+    @Test
+    public void testOtherKind() {
+        RteOpenDataCache.writeSubstations(cacheFile, sources, createSubstations());
+        assertNull(RteOpenDataCache.readLines(cacheFile, sources));
+    }
+
+    @Test
+    public void testTruncatedCache() throws IOException {
+        RteOpenDataCache.writeSubstations(cacheFile, sources, createSubstations());
+        byte[] bytes = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(bytes, bytes.length - 10));
+        assertNull(RteOpenDataCache.readSubstations(cacheFile, sources));
+    }
+
+    private List<Path> listDir() throws IOException {
+        try (Stream<Path> paths = Files.list(dir)) {
+            return paths.sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testNoTemporaryFileLeft() throws IOException {
+        RteOpenDataCache.writeSubstations(cacheFile, sources, createSubstations());
+        assertEquals(Arrays.asList(cacheFile, source), listDir());
+    }
+
+    @Test
+    public void testFailedWrite() throws IOException {
+        RteOpenDataCache.writeSubstations(cacheFile, sources, createSubstations());
+        RteOpenDataCache.write(cacheFile, RteOpenDataCache.SUBSTATIONS, sources, os -> {
+            os.writeInt(1);
+            throw new IOException("failed");
+        });
+        // previous cache is kept and partially written data is deleted
+        assertEquals(Arrays.asList(cacheFile, source), listDir());
+        assertNotNull(RteOpenDataCache.readSubstations(cacheFile, sources));
+    }
+}